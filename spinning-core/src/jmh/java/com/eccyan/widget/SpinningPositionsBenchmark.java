@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2015 eccyan <g00.eccyan@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eccyan.widget;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per frame position math of the loop pager and the tab strip across tab counts.
+ *
+ * Run with ./gradlew :spinning-core:jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpinningPositionsBenchmark {
+
+    private static final int TAB_WIDTH = 120;
+
+    private static final int VIEWPORT_WIDTH = 1080;
+
+    private static final int SAMPLES = 1024;
+
+    @Param({"5", "50", "1000"})
+    public int tabCount;
+
+    private int tabsWidth;
+
+    private int tabCopies;
+
+    private int containerWidth;
+
+    private int[] tabEdges;
+
+    // Inputs cycled through so the math isn't folded into constants
+    private int[] positions;
+
+    private int[] scrollXs;
+
+    private float[] fractions;
+
+    private int sample;
+
+    @Setup
+    public void setUp() {
+        tabsWidth = tabCount * TAB_WIDTH;
+        tabCopies = SpinningPositions.resolveTabCopies(0, 0, tabCount, tabsWidth,
+                VIEWPORT_WIDTH, 3, 4);
+        containerWidth = tabsWidth * tabCopies;
+
+        // Widths vary a little like titles do
+        final Random random = new Random(0);
+        tabEdges = new int[tabCount + 1];
+        for (int i = 0; i < tabCount; i++) {
+            tabEdges[i + 1] = tabEdges[i] + TAB_WIDTH / 2 + random.nextInt(TAB_WIDTH);
+        }
+
+        positions = new int[SAMPLES];
+        scrollXs = new int[SAMPLES];
+        fractions = new float[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            positions[i] = random.nextInt(tabCount + 2);
+            scrollXs[i] = random.nextInt(containerWidth * 4) - containerWidth * 2;
+            fractions[i] = random.nextFloat();
+        }
+    }
+
+    private int next() {
+        sample = (sample + 1) & (SAMPLES - 1);
+        return sample;
+    }
+
+    @Benchmark
+    public int toRealPosition() {
+        return SpinningPositions.toRealPosition(positions[next()], tabCount);
+    }
+
+    @Benchmark
+    public int roundTripPosition() {
+        final int i = next();
+        return SpinningPositions.toInnerPosition(
+                SpinningPositions.toRealPosition(positions[i], tabCount));
+    }
+
+    @Benchmark
+    public float indicatorInterpolation() {
+        final int i = next();
+        final int position = positions[i] % tabCount;
+        final int next = Math.min(position + 1, tabCount);
+        return SpinningPositions.interpolate(tabEdges[position], tabEdges[next], fractions[i]);
+    }
+
+    @Benchmark
+    public int findTab() {
+        final int x = Math.abs(scrollXs[next()]) % tabEdges[tabCount];
+        return TabRanges.findTab(tabEdges, tabCount, x);
+    }
+
+    @Benchmark
+    public int wrapStart() {
+        final int wrapWidth = SpinningPositions.wrapWidth(VIEWPORT_WIDTH, tabsWidth, tabCopies);
+        return SpinningPositions.wrapStart(Math.abs(scrollXs[next()]) % tabsWidth,
+                containerWidth, wrapWidth, tabsWidth);
+    }
+
+    @Benchmark
+    public int wrapEnd() {
+        return SpinningPositions.wrapEnd(Math.abs(scrollXs[next()]), tabsWidth);
+    }
+
+    @Benchmark
+    public int toPhysicalScrollX() {
+        return SpinningPositions.toPhysicalScrollX(scrollXs[next()], tabsWidth);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2015 eccyan <g00.eccyan@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eccyan.widget;
+
+/**
+ * Position and scroll math of the loop pager and the spinning tab strip,
+ * kept free of Android so it runs on a plain JVM.
+ */
+final class SpinningPositions {
+
+    private SpinningPositions() {
+    }
+
+    /**
+     * @param innerPosition position in the loop adapter, boundary pages included
+     * @return position in the wrapped adapter
+     */
+    static int toRealPosition(int innerPosition, int realCount) {
+        if (realCount == 0) {
+            return 0;
+        }
+        final int realPosition = (innerPosition - 1) % realCount;
+        return realPosition < 0 ? realPosition + realCount : realPosition;
+    }
+
+    static int toInnerPosition(int realPosition) {
+        return realPosition + 1;
+    }
+
+    /**
+     * @param virtualPosition position in a virtual count of repeated real pages
+     * @return position in the wrapped adapter
+     */
+    static int toVirtualRealPosition(int virtualPosition, int realCount) {
+        if (realCount == 0) {
+            return 0;
+        }
+        final int realPosition = virtualPosition % realCount;
+        return realPosition < 0 ? realPosition + realCount : realPosition;
+    }
+
+    /**
+     * @return the number of times the real pages repeat in a virtual count of
+     * about virtualCount pages, odd to have a middle set and at least 3
+     */
+    static int virtualSets(int realCount, int virtualCount) {
+        if (realCount == 0) {
+            return 0;
+        }
+        final int sets = Math.max(3, virtualCount / realCount);
+        return sets % 2 == 0 ? sets - 1 : sets;
+    }
+
+    /**
+     * @return the value between from and to at fraction, e.g. an indicator edge
+     * moving to the next tab
+     */
+    static float interpolate(float from, float to, float fraction) {
+        return fraction * to + (1f - fraction) * from;
+    }
+
+    /**
+     * @return the number of tab sets needed for seamless wrap, at least minCopies
+     * @param tabsWidth width of one set of tabs, or 0 if unknown
+     */
+    static int resolveTabCopies(int sideCount, int showTabsCount, int tabCount, int tabsWidth,
+            int viewportWidth, int minCopies, int defaultCopies) {
+        if (sideCount > 0) {
+            return Math.max(minCopies, sideCount + 1);
+        }
+
+        int sets;
+        if (showTabsCount > 0 && tabCount > 0) {
+            sets = (showTabsCount + tabCount - 1) / tabCount;
+        } else if (tabsWidth > 0) {
+            sets = (viewportWidth + tabsWidth - 1) / tabsWidth;
+        } else {
+            return defaultCopies;
+        }
+        // Besides the sets covering the viewport, one to wrap from and one to wrap to
+        return Math.max(minCopies, sets + 2);
+    }
+
+    /**
+     * @return the width from both ends within which the strip wraps, whole sets
+     * of tabs covering the viewport
+     */
+    static int wrapWidth(int viewportWidth, int tabsWidth, int tabCopies) {
+        if (tabsWidth == 0) {
+            return 0;
+        }
+        final int sets = (viewportWidth + tabsWidth - 1) / tabsWidth;
+        return Math.max(1, Math.min(sets, tabCopies - 2)) * tabsWidth;
+    }
+
+    /**
+     * @return the scroll x showing the same tabs as scrollX, moved away from the start
+     */
+    static int wrapStart(int scrollX, int containerWidth, int wrapWidth, int tabsWidth) {
+        return containerWidth - (wrapWidth + tabsWidth - Math.max(scrollX, 0) % tabsWidth);
+    }
+
+    /**
+     * @return the scroll x showing the same tabs as scrollX, moved away from the end
+     */
+    static int wrapEnd(int scrollX, int tabsWidth) {
+        return tabsWidth + scrollX % tabsWidth;
+    }
+
+    /**
+     * @return the scroll x showing the same tabs as the logical scroll x, inside
+     * the real set of tabs
+     */
+    static int toPhysicalScrollX(int logicalScrollX, int tabsWidth) {
+        if (tabsWidth == 0) {
+            return logicalScrollX;
+        }
+        final int offset = (logicalScrollX - tabsWidth) % tabsWidth;
+        return tabsWidth + (offset < 0 ? offset + tabsWidth : offset);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2015 eccyan <g00.eccyan@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eccyan.widget;
+
+import java.util.Arrays;
+
+/**
+ * Helpers applying tab range insertions, removals and moves to per position
+ * arrays, and looking positions up in tab edges.
+ */
+final class TabRanges {
+
+    private TabRanges() {
+    }
+
+    static int[] insert(int[] array, int positionStart, int itemCount, int value) {
+        final int[] result = new int[array.length + itemCount];
+        System.arraycopy(array, 0, result, 0, positionStart);
+        Arrays.fill(result, positionStart, positionStart + itemCount, value);
+        System.arraycopy(array, positionStart, result, positionStart + itemCount,
+                array.length - positionStart);
+        return result;
+    }
+
+    static <T> T[] insert(T[] array, int positionStart, int itemCount) {
+        final T[] result = Arrays.copyOf(array, array.length + itemCount);
+        System.arraycopy(array, positionStart, result, positionStart + itemCount,
+                array.length - positionStart);
+        Arrays.fill(result, positionStart, positionStart + itemCount, null);
+        return result;
+    }
+
+    static int[] remove(int[] array, int positionStart, int itemCount) {
+        final int[] result = new int[array.length - itemCount];
+        System.arraycopy(array, 0, result, 0, positionStart);
+        System.arraycopy(array, positionStart + itemCount, result, positionStart,
+                result.length - positionStart);
+        return result;
+    }
+
+    static <T> T[] remove(T[] array, int positionStart, int itemCount) {
+        final T[] result = Arrays.copyOf(array, array.length - itemCount);
+        System.arraycopy(array, positionStart + itemCount, result, positionStart,
+                result.length - positionStart);
+        return result;
+    }
+
+    /**
+     * Moves itemCount items from fromPosition so that they start at toPosition
+     * once moved.
+     */
+    static void move(int[] array, int fromPosition, int toPosition, int itemCount) {
+        final int[] moved = Arrays.copyOfRange(array, fromPosition, fromPosition + itemCount);
+        shift(array, fromPosition, toPosition, itemCount);
+        System.arraycopy(moved, 0, array, toPosition, itemCount);
+    }
+
+    static void move(Object[] array, int fromPosition, int toPosition, int itemCount) {
+        final Object[] moved = Arrays.copyOfRange(array, fromPosition, fromPosition + itemCount);
+        shift(array, fromPosition, toPosition, itemCount);
+        System.arraycopy(moved, 0, array, toPosition, itemCount);
+    }
+
+    private static void shift(Object array, int fromPosition, int toPosition, int itemCount) {
+        if (fromPosition < toPosition) {
+            System.arraycopy(array, fromPosition + itemCount, array, fromPosition,
+                    toPosition - fromPosition);
+        } else {
+            System.arraycopy(array, toPosition, array, toPosition + itemCount,
+                    fromPosition - toPosition);
+        }
+    }
+
+    /**
+     * @param edges ascending left edges of the tabs
+     * @return the last of the first count tabs whose left edge is not greater
+     * than x, 0 if there is none
+     */
+    static int findTab(int[] edges, int count, int x) {
+        int low = 0;
+        int high = count - 1;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (edges[mid] <= x) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return Math.max(low, 0);
+    }
+
+    static void checkRange(int positionStart, int itemCount, int size) {
+        if (positionStart < 0 || itemCount < 0 || positionStart + itemCount > size) {
+            throw new IndexOutOfBoundsException("Invalid tab range " + positionStart + "+"
+                    + itemCount + ", size " + size);
+        }
+    }
+}
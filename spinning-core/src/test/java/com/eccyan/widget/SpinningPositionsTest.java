@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2015 eccyan <g00.eccyan@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eccyan.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SpinningPositionsTest {
+
+    @Test
+    public void toRealPositionMapsBoundaryPages() {
+        assertEquals(4, SpinningPositions.toRealPosition(0, 5));
+        assertEquals(0, SpinningPositions.toRealPosition(1, 5));
+        assertEquals(4, SpinningPositions.toRealPosition(5, 5));
+        assertEquals(0, SpinningPositions.toRealPosition(6, 5));
+        assertEquals(0, SpinningPositions.toRealPosition(3, 0));
+    }
+
+    @Test
+    public void toInnerPositionRoundTrips() {
+        for (int realPosition = 0; realPosition < 5; realPosition++) {
+            final int innerPosition = SpinningPositions.toInnerPosition(realPosition);
+            assertEquals(realPosition + 1, innerPosition);
+            assertEquals(realPosition, SpinningPositions.toRealPosition(innerPosition, 5));
+        }
+    }
+
+    @Test
+    public void toVirtualRealPositionWraps() {
+        assertEquals(2, SpinningPositions.toVirtualRealPosition(12, 5));
+        assertEquals(4, SpinningPositions.toVirtualRealPosition(-1, 5));
+        assertEquals(0, SpinningPositions.toVirtualRealPosition(7, 0));
+    }
+
+    @Test
+    public void virtualSetsIsOddAndAtLeastThree() {
+        assertEquals(1999, SpinningPositions.virtualSets(5, 10000));
+        assertEquals(1665, SpinningPositions.virtualSets(6, 10000));
+        assertEquals(3333, SpinningPositions.virtualSets(3, 10000));
+        assertEquals(3, SpinningPositions.virtualSets(5000, 10000));
+        assertEquals(0, SpinningPositions.virtualSets(0, 10000));
+        for (int realCount = 1; realCount <= 100; realCount++) {
+            final int sets = SpinningPositions.virtualSets(realCount, 10000);
+            assertEquals(1, sets % 2);
+        }
+    }
+
+    @Test
+    public void interpolate() {
+        assertEquals(12.5f, SpinningPositions.interpolate(10f, 20f, 0.25f), 0f);
+        assertEquals(10f, SpinningPositions.interpolate(10f, 20f, 0f), 0f);
+        assertEquals(20f, SpinningPositions.interpolate(10f, 20f, 1f), 0f);
+    }
+
+    @Test
+    public void resolveTabCopiesFromSideCount() {
+        assertEquals(3, SpinningPositions.resolveTabCopies(2, 0, 5, 0, 1080, 3, 4));
+        assertEquals(5, SpinningPositions.resolveTabCopies(4, 0, 5, 0, 1080, 3, 4));
+    }
+
+    @Test
+    public void resolveTabCopiesFromShowTabsCount() {
+        assertEquals(5, SpinningPositions.resolveTabCopies(0, 7, 3, 0, 1080, 3, 4));
+    }
+
+    @Test
+    public void resolveTabCopiesFromTabsWidth() {
+        assertEquals(5, SpinningPositions.resolveTabCopies(0, 0, 5, 500, 1080, 3, 4));
+        assertEquals(3, SpinningPositions.resolveTabCopies(0, 0, 5, 2000, 1080, 3, 4));
+    }
+
+    @Test
+    public void resolveTabCopiesUnknownWidth() {
+        assertEquals(4, SpinningPositions.resolveTabCopies(0, 0, 5, 0, 1080, 3, 4));
+    }
+
+    @Test
+    public void wrapWidth() {
+        assertEquals(1000, SpinningPositions.wrapWidth(1080, 500, 4));
+        assertEquals(500, SpinningPositions.wrapWidth(300, 500, 3));
+        assertEquals(0, SpinningPositions.wrapWidth(1080, 0, 4));
+    }
+
+    @Test
+    public void wrapStartShowsSameTabs() {
+        final int scrollX = SpinningPositions.wrapStart(30, 2000, 500, 500);
+        assertEquals(1030, scrollX);
+        assertEquals(0, (scrollX - 30) % 500);
+        assertEquals(1000, SpinningPositions.wrapStart(-20, 2000, 500, 500));
+    }
+
+    @Test
+    public void wrapEndShowsSameTabs() {
+        final int scrollX = SpinningPositions.wrapEnd(1730, 500);
+        assertEquals(730, scrollX);
+        assertEquals(0, (1730 - scrollX) % 500);
+    }
+
+    @Test
+    public void toPhysicalScrollXStaysInRealSet() {
+        assertEquals(100, SpinningPositions.toPhysicalScrollX(0, 100));
+        assertEquals(100, SpinningPositions.toPhysicalScrollX(100, 100));
+        assertEquals(199, SpinningPositions.toPhysicalScrollX(199, 100));
+        assertEquals(100, SpinningPositions.toPhysicalScrollX(200, 100));
+        assertEquals(130, SpinningPositions.toPhysicalScrollX(1230, 100));
+    }
+
+    @Test
+    public void toPhysicalScrollXNegativeLogicalX() {
+        assertEquals(170, SpinningPositions.toPhysicalScrollX(-30, 100));
+        assertEquals(150, SpinningPositions.toPhysicalScrollX(-250, 100));
+        assertEquals(100, SpinningPositions.toPhysicalScrollX(-300, 100));
+    }
+
+    @Test
+    public void toPhysicalScrollXUnknownWidth() {
+        assertEquals(-30, SpinningPositions.toPhysicalScrollX(-30, 0));
+    }
+}
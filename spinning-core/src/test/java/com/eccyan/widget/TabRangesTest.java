@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2015 eccyan <g00.eccyan@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eccyan.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TabRangesTest {
+
+    @Test
+    public void insertInts() {
+        final int[] array = {1, 2, 3};
+        assertArrayEquals(new int[]{-1, -1, 1, 2, 3}, TabRanges.insert(array, 0, 2, -1));
+        assertArrayEquals(new int[]{1, -1, -1, 2, 3}, TabRanges.insert(array, 1, 2, -1));
+        assertArrayEquals(new int[]{1, 2, 3, -1, -1}, TabRanges.insert(array, 3, 2, -1));
+    }
+
+    @Test
+    public void insertObjects() {
+        final String[] array = {"a", "b"};
+        assertArrayEquals(new String[]{"a", null, "b"}, TabRanges.insert(array, 1, 1));
+        assertArrayEquals(new String[]{"a", "b", null}, TabRanges.insert(array, 2, 1));
+    }
+
+    @Test
+    public void removeInts() {
+        final int[] array = {1, 2, 3, 4};
+        assertArrayEquals(new int[]{1, 4}, TabRanges.remove(array, 1, 2));
+        assertArrayEquals(new int[]{3, 4}, TabRanges.remove(array, 0, 2));
+        assertArrayEquals(new int[]{1, 2}, TabRanges.remove(array, 2, 2));
+    }
+
+    @Test
+    public void removeObjects() {
+        final String[] array = {"a", "b", "c"};
+        assertArrayEquals(new String[]{"a", "c"}, TabRanges.remove(array, 1, 1));
+    }
+
+    @Test
+    public void moveForward() {
+        final int[] array = {0, 1, 2, 3, 4, 5};
+        TabRanges.move(array, 1, 3, 2);
+        assertArrayEquals(new int[]{0, 3, 4, 1, 2, 5}, array);
+    }
+
+    @Test
+    public void moveBackward() {
+        final int[] array = {0, 1, 2, 3, 4, 5};
+        TabRanges.move(array, 3, 1, 2);
+        assertArrayEquals(new int[]{0, 3, 4, 1, 2, 5}, array);
+    }
+
+    @Test
+    public void moveObjects() {
+        final String[] forward = {"a", "b", "c", "d"};
+        TabRanges.move(forward, 0, 2, 2);
+        assertArrayEquals(new String[]{"c", "d", "a", "b"}, forward);
+
+        final String[] backward = {"a", "b", "c", "d"};
+        TabRanges.move(backward, 3, 0, 1);
+        assertArrayEquals(new String[]{"d", "a", "b", "c"}, backward);
+    }
+
+    @Test
+    public void findTabAtEdges() {
+        final int[] edges = {0, 100, 250, 300, 420};
+        assertEquals(0, TabRanges.findTab(edges, 4, 0));
+        assertEquals(0, TabRanges.findTab(edges, 4, 99));
+        assertEquals(1, TabRanges.findTab(edges, 4, 100));
+        assertEquals(2, TabRanges.findTab(edges, 4, 299));
+        assertEquals(3, TabRanges.findTab(edges, 4, 300));
+    }
+
+    @Test
+    public void findTabOutside() {
+        final int[] edges = {0, 100, 250, 300, 420};
+        assertEquals(3, TabRanges.findTab(edges, 4, 1000));
+        assertEquals(0, TabRanges.findTab(edges, 4, -5));
+        assertEquals(0, TabRanges.findTab(edges, 0, 50));
+    }
+
+    @Test
+    public void checkRangeAcceptsEnd() {
+        TabRanges.checkRange(3, 0, 3);
+        TabRanges.checkRange(0, 3, 3);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void checkRangeRejectsPastEnd() {
+        TabRanges.checkRange(2, 2, 3);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void checkRangeRejectsNegativeStart() {
+        TabRanges.checkRange(-1, 1, 3);
+    }
+}
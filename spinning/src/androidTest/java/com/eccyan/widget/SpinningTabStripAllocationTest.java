@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2015 eccyan <g00.eccyan@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eccyan.widget;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v4.view.PagerAdapter;
+import android.support.v4.view.ViewPager.OnPageChangeListener;
+import android.view.View;
+import android.view.View.MeasureSpec;
+import android.view.ViewGroup;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.reflect.Field;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that scrolling the pager and drawing the strip allocate nothing per frame.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SpinningTabStripAllocationTest {
+
+    private static final int TAB_COUNT = 10;
+
+    private static final int WIDTH = 1080;
+
+    private static final int HEIGHT = 144;
+
+    private static final int DIVIDER_WIDTH = 2;
+
+    // Callbacks per page, as during a swipe
+    private static final int FRAMES_PER_PAGE = 20;
+
+    private SpinningTabStrip strip;
+
+    private OnPageChangeListener pageListener;
+
+    private Bitmap bitmap;
+
+    private Canvas canvas;
+
+    @Before
+    public void setUp() {
+        bitmap = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+        canvas = new Canvas(bitmap);
+    }
+
+    private void setUpStrip(final boolean recycleTabs) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                final Context context = InstrumentationRegistry.getTargetContext();
+                final SpinningViewPager pager = new SpinningViewPager(context);
+                pager.setAdapter(new TitlesAdapter());
+
+                strip = new SpinningTabStrip(context);
+                strip.setDividerWidth(DIVIDER_WIDTH);
+                strip.setTabsRecycling(recycleTabs);
+                if (recycleTabs) {
+                    // All caps transforms the title again whenever a tab is bound to another page
+                    strip.setAllCaps(false);
+                }
+                strip.setViewPager(pager);
+                strip.measure(MeasureSpec.makeMeasureSpec(WIDTH, MeasureSpec.EXACTLY),
+                        MeasureSpec.makeMeasureSpec(HEIGHT, MeasureSpec.EXACTLY));
+                strip.layout(0, 0, WIDTH, HEIGHT);
+
+                pageListener = getPageListener(strip);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        bitmap.recycle();
+    }
+
+    @Test
+    public void pageScrollAndDrawDoNotAllocate() {
+        setUpStrip(false);
+        assertEquals(0, countScrollAllocations());
+    }
+
+    /**
+     * Tabs scrolled into the viewport are bound from the scrap heap every frame.
+     */
+    @Test
+    public void recycledPageScrollAndDrawDoNotAllocate() {
+        setUpStrip(true);
+        assertEquals(0, countScrollAllocations());
+    }
+
+    private int countScrollAllocations() {
+        final int[] allocations = new int[1];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                // Fills the lazily built edges, divider lines, layouts and scrap heap first
+                scrollAllPages();
+
+                Debug.resetThreadAllocCount();
+                Debug.startAllocCounting();
+                scrollAllPages();
+                Debug.stopAllocCounting();
+                allocations[0] = Debug.getThreadAllocCount();
+            }
+        });
+        return allocations[0];
+    }
+
+    private void scrollAllPages() {
+        for (int position = 0; position < TAB_COUNT; position++) {
+            for (int i = 0; i < FRAMES_PER_PAGE; i++) {
+                final float offset = (float) i / FRAMES_PER_PAGE;
+                pageListener.onPageScrolled(position, offset, (int) (offset * WIDTH));
+                strip.draw(canvas);
+            }
+        }
+    }
+
+    private static OnPageChangeListener getPageListener(SpinningTabStrip strip) {
+        try {
+            final Field field = SpinningTabStrip.class.getDeclaredField("pageListener");
+            field.setAccessible(true);
+            return (OnPageChangeListener) field.get(strip);
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException(e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class TitlesAdapter extends PagerAdapter {
+
+        private final String[] titles = new String[TAB_COUNT];
+
+        TitlesAdapter() {
+            for (int i = 0; i < TAB_COUNT; i++) {
+                titles[i] = "Tab " + i;
+            }
+        }
+
+        @Override
+        public int getCount() {
+            return TAB_COUNT;
+        }
+
+        @Override
+        public CharSequence getPageTitle(int position) {
+            return titles[position];
+        }
+
+        @Override
+        public Object instantiateItem(ViewGroup container, int position) {
+            final View view = new View(container.getContext());
+            container.addView(view);
+            return view;
+        }
+
+        @Override
+        public void destroyItem(ViewGroup container, int position, Object object) {
+            container.removeView((View) object);
+        }
+
+        @Override
+        public boolean isViewFromObject(View view, Object object) {
+            return view == object;
+        }
+    }
+}
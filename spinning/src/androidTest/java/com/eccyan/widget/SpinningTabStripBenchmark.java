@@ -0,0 +1,315 @@
+/*
+ * Copyright (C) 2015 eccyan <g00.eccyan@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eccyan.widget;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v4.view.PagerAdapter;
+import android.support.v4.view.ViewPager.OnPageChangeListener;
+import android.util.Log;
+import android.view.View;
+import android.view.View.MeasureSpec;
+import android.view.ViewGroup;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.reflect.Field;
+
+/**
+ * Runs the strip across tab counts and writes the duration, allocations and
+ * created tab views of every scenario to spinning-tab-strip-benchmark.json in
+ * the files directory of the target.
+ *
+ * Run with ./gradlew :spinning:connectedAndroidTest
+ */
+@RunWith(AndroidJUnit4.class)
+public class SpinningTabStripBenchmark {
+
+    private static final String TAG = "SpinningTabStripBenchmark";
+
+    private static final String RESULTS_FILE = "spinning-tab-strip-benchmark.json";
+
+    private static final int[] TAB_COUNTS = {5, 50, 100, 1000};
+
+    private static final int WIDTH = 1080;
+
+    private static final int HEIGHT = 144;
+
+    // Callbacks per page, as during a swipe
+    private static final int FRAMES_PER_PAGE = 20;
+
+    private static final int SWIPED_PAGES = 5;
+
+    private static final int FLING_VELOCITY = 8000;
+
+    private static final int FLING_FRAMES = 60;
+
+    private static final long FRAME_MILLIS = 16;
+
+    private final JSONArray results = new JSONArray();
+
+    private SpinningTabStrip strip;
+
+    private SpinningViewPager pager;
+
+    private OnPageChangeListener pageListener;
+
+    private CountingMetricsListener metrics;
+
+    private Bitmap bitmap;
+
+    private Canvas canvas;
+
+    private long startNanos;
+
+    private long durationNanos;
+
+    @Before
+    public void setUp() {
+        bitmap = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+        canvas = new Canvas(bitmap);
+    }
+
+    @After
+    public void tearDown() {
+        bitmap.recycle();
+    }
+
+    @Test
+    public void benchmarkTabCounts() throws IOException, JSONException {
+        for (int tabCount : TAB_COUNTS) {
+            benchmark(tabCount, false);
+            benchmark(tabCount, true);
+        }
+
+        final File file = new File(InstrumentationRegistry.getTargetContext().getFilesDir(), RESULTS_FILE);
+        final FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(results.toString(2));
+        } finally {
+            writer.close();
+        }
+        Log.i(TAG, "Wrote " + file + "\n" + results.toString(2));
+    }
+
+    private void benchmark(final int tabCount, final boolean recycleTabs) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                final Context context = InstrumentationRegistry.getTargetContext();
+                pager = new SpinningViewPager(context);
+                pager.setAdapter(new TitlesAdapter(tabCount));
+
+                metrics = new CountingMetricsListener();
+                strip = new SpinningTabStrip(context);
+                strip.setTabsRecycling(recycleTabs);
+                strip.setMetricsListener(metrics);
+
+                start();
+                strip.setViewPager(pager);
+                layout();
+                stop(tabCount, recycleTabs, "setViewPager", 1);
+
+                pageListener = getPageListener(strip);
+
+                start();
+                strip.notifyDataSetChanged();
+                layout();
+                stop(tabCount, recycleTabs, "notifyDataSetChanged", 1);
+
+                // Fills the lazily built edges, layouts and scrap heap before the swipe is measured
+                swipe();
+                start();
+                swipe();
+                stop(tabCount, recycleTabs, "onPageScrolled", SWIPED_PAGES * FRAMES_PER_PAGE);
+            }
+        });
+
+        // The fling advances with the clock, so frames are drawn one at a time
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                start();
+                strip.fling(FLING_VELOCITY);
+                for (int i = 0; i < FLING_FRAMES; i++) {
+                    pause();
+                    SystemClock.sleep(FRAME_MILLIS);
+                    resume();
+                    strip.computeScroll();
+                    strip.draw(canvas);
+                }
+                stop(tabCount, recycleTabs, "fling", FLING_FRAMES);
+            }
+        });
+    }
+
+    private void layout() {
+        strip.measure(MeasureSpec.makeMeasureSpec(WIDTH, MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(HEIGHT, MeasureSpec.EXACTLY));
+        strip.layout(0, 0, WIDTH, HEIGHT);
+        strip.draw(canvas);
+    }
+
+    private void swipe() {
+        for (int position = 0; position < SWIPED_PAGES; position++) {
+            for (int i = 0; i < FRAMES_PER_PAGE; i++) {
+                final float offset = (float) i / FRAMES_PER_PAGE;
+                pageListener.onPageScrolled(position, offset, (int) (offset * WIDTH));
+                strip.draw(canvas);
+            }
+        }
+    }
+
+    private void start() {
+        metrics.reset();
+        durationNanos = 0;
+        Debug.resetThreadAllocCount();
+        resume();
+    }
+
+    private void pause() {
+        durationNanos += System.nanoTime() - startNanos;
+        Debug.stopAllocCounting();
+    }
+
+    private void resume() {
+        Debug.startAllocCounting();
+        startNanos = System.nanoTime();
+    }
+
+    private void stop(int tabCount, boolean recycleTabs, String scenario, int frames) {
+        pause();
+        final int allocations = Debug.getThreadAllocCount();
+
+        try {
+            results.put(new JSONObject()
+                    .put("tabCount", tabCount)
+                    .put("recycleTabs", recycleTabs)
+                    .put("scenario", scenario)
+                    .put("frames", frames)
+                    .put("durationNanos", durationNanos)
+                    .put("allocations", allocations)
+                    .put("tabViewsCreated", metrics.tabViewsCreated)
+                    .put("infiniteWraps", metrics.infiniteWraps));
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static OnPageChangeListener getPageListener(SpinningTabStrip strip) {
+        try {
+            final Field field = SpinningTabStrip.class.getDeclaredField("pageListener");
+            field.setAccessible(true);
+            return (OnPageChangeListener) field.get(strip);
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException(e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class CountingMetricsListener implements SpinningTabStrip.MetricsListener {
+
+        int tabViewsCreated;
+
+        int infiniteWraps;
+
+        void reset() {
+            tabViewsCreated = 0;
+            infiniteWraps = 0;
+        }
+
+        @Override
+        public void onTabsRebuilt(int tabCount, long durationNanos) {
+        }
+
+        @Override
+        public void onTabViewCreated(int position) {
+            tabViewsCreated++;
+        }
+
+        @Override
+        public void onInfiniteWrap(int fromScrollX, int toScrollX) {
+            infiniteWraps++;
+        }
+
+        @Override
+        public void onFlingStarted(int velocityX) {
+        }
+
+        @Override
+        public void onFrameDrawn(long durationNanos) {
+        }
+
+        @Override
+        public void onPageScrollInvalidations(int fullInvalidations, int partialInvalidations) {
+        }
+    }
+
+    private static class TitlesAdapter extends PagerAdapter {
+
+        private final String[] titles;
+
+        TitlesAdapter(int count) {
+            titles = new String[count];
+            for (int i = 0; i < count; i++) {
+                titles[i] = "Tab " + i;
+            }
+        }
+
+        @Override
+        public int getCount() {
+            return titles.length;
+        }
+
+        @Override
+        public CharSequence getPageTitle(int position) {
+            return titles[position];
+        }
+
+        @Override
+        public Object instantiateItem(ViewGroup container, int position) {
+            final View view = new View(container.getContext());
+            container.addView(view);
+            return view;
+        }
+
+        @Override
+        public void destroyItem(ViewGroup container, int position, Object object) {
+            container.removeView((View) object);
+        }
+
+        @Override
+        public boolean isViewFromObject(View view, Object object) {
+            return view == object;
+        }
+    }
+}
@@ -23,9 +23,13 @@ import android.support.v4.app.FragmentPagerAdapter;
 import android.support.v4.app.FragmentStatePagerAdapter;
 import android.support.v4.view.PagerAdapter;
 import android.util.SparseArray;
+import android.util.SparseIntArray;
 import android.view.View;
 import android.view.ViewGroup;
 
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
 /**
  * A PagerAdapter wrapper responsible for providing a proper page to
  * LoopViewPager
@@ -34,18 +38,167 @@ import android.view.ViewGroup;
  */
 public class LoopPagerAdapterWrapper extends PagerAdapter {
 
+    // Pages of the virtual count, page offsets in pixels stay far from overflowing
+    private static final int VIRTUAL_COUNT = 10000;
+
     private PagerAdapter mAdapter;
 
-    private SparseArray<ToDestroy> mToDestroy = new SparseArray<ToDestroy>();
+    // Destroyed pages kept for reuse, keyed by the position of the inner adapter, least recently used first
+    private final LinkedHashMap<Integer, ToDestroy> mToDestroy =
+            new LinkedHashMap<Integer, ToDestroy>(16, 0.75f, true);
 
     private boolean mBoundaryCaching;
 
+    private int mPageCacheSize;
+
+    private int mMaxPrefetchPages;
+
+    // Number of pages of each inner adapter position currently in the pager
+    private final SparseIntArray mActivePages = new SparseIntArray();
+
+    private boolean mSharedFragments;
+
+    // Virtual loop: the real pages repeated many times, without boundary pages
+    private boolean mVirtual;
+
+    // Fragments in the pager by real position, shared by the boundary pages
+    private final SparseArray<Object> mActiveFragments = new SparseArray<Object>();
+
+    private SpinningViewPager.MetricsListener mMetricsListener;
+
+    // Real count the virtual positions in the pager were laid out for
+    private int mVirtualRealCount;
+
+    // Set while the pager drops the pages laid out for another real count
+    private boolean mVirtualRemapping;
+
+    private int mPrimaryPosition;
+
+    private OnVirtualRecenterListener mVirtualRecenterListener;
+
+    /**
+     * Moves the pager to the virtual position showing its current real page
+     * after the real count changed.
+     */
+    interface OnVirtualRecenterListener {
+
+        void onVirtualRecenter(int position);
+    }
+
     void setBoundaryCaching(boolean flag) {
         mBoundaryCaching = flag;
+        trimPageCache();
+    }
+
+    /**
+     * Keeps up to size destroyed pages of any position to reuse them, the least
+     * recently used ones are destroyed in the inner adapter beyond that.
+     */
+    void setPageCacheSize(int size) {
+        mPageCacheSize = size;
+        trimPageCache();
+    }
+
+    /**
+     * Makes fragment adapters see real positions only, the boundary pages show
+     * the fragment of their real position instead of fragments of their own.
+     */
+    void setSharedFragments(boolean shared) {
+        mSharedFragments = shared;
+    }
+
+    private boolean isFragmentAdapter() {
+        return mAdapter instanceof FragmentPagerAdapter || mAdapter instanceof FragmentStatePagerAdapter;
+    }
+
+    private boolean isSharingFragments() {
+        return (mSharedFragments || mVirtual) && isFragmentAdapter();
+    }
+
+    /**
+     * Exposes a virtual count of about virtualCount pages, the real pages
+     * repeated around the middle, instead of the real pages between two
+     * boundary pages. Fragment adapters see real positions only.
+     */
+    void setVirtualCount(boolean virtual) {
+        mVirtual = virtual;
+    }
+
+    boolean isVirtual() {
+        return mVirtual;
+    }
+
+    void setOnVirtualRecenterListener(OnVirtualRecenterListener listener) {
+        mVirtualRecenterListener = listener;
+    }
+
+    /**
+     * @return the position showing the real position in the middle of the virtual count
+     */
+    int getVirtualCenterPosition(int realPosition) {
+        final int sets = SpinningPositions.virtualSets(getRealCount(), VIRTUAL_COUNT);
+        return (sets / 2) * getRealCount() + realPosition;
+    }
+
+    /**
+     * @return true if the position is far enough from both ends of the virtual
+     * count to never reach them in a scroll
+     */
+    boolean isVirtualPositionCentered(int position) {
+        final int count = getCount();
+        return position >= count / 4 && position < count - count / 4;
+    }
+
+    void setMaxPrefetchPages(int max) {
+        mMaxPrefetchPages = max;
+        trimPageCache();
+    }
+
+    /**
+     * Instantiates pages ahead of the pager into the page cache, wrapping
+     * around the loop, so they are reused instead of being created cold.
+     *
+     * @param position  inner position of the first page to prefetch
+     * @param direction 1 for pages after it, -1 for pages before it
+     * @param count     number of pages, capped by the max prefetch pages
+     */
+    void prefetch(ViewGroup container, int position, int direction, int count) {
+        final int realCount = getRealCount();
+        count = Math.min(Math.min(count, mMaxPrefetchPages), realCount);
+        if (count <= 0) {
+            return;
+        }
+
+        boolean updating = false;
+        for (int i = 0; i < count; i++) {
+            // The page the pager asks for after jumping across the seam
+            final int innerPosition = mVirtual
+                    ? position + direction * i
+                    : toInnerPosition(toRealPosition(position + direction * i));
+            final int realPosition = getInnerAdapterPosition(innerPosition);
+            if (mActivePages.get(realPosition) > 0 || mToDestroy.containsKey(realPosition)) {
+                continue;
+            }
+
+            if (!updating) {
+                mAdapter.startUpdate(container);
+                updating = true;
+            }
+            cachePage(new ToDestroy(container, realPosition,
+                    instantiateInnerItem(container, realPosition)));
+        }
+        if (updating) {
+            mAdapter.finishUpdate(container);
+        }
+    }
+
+    void setMetricsListener(SpinningViewPager.MetricsListener listener) {
+        mMetricsListener = listener;
     }
 
     LoopPagerAdapterWrapper(PagerAdapter adapter) {
         this.mAdapter = adapter;
+        this.mVirtualRealCount = adapter.getCount();
         adapter.registerDataSetObserver(new DataSetObserver() {
             public void onChanged() {
                 notifyDataSetChanged();
@@ -55,24 +208,120 @@ public class LoopPagerAdapterWrapper extends PagerAdapter {
 
     @Override
     public void notifyDataSetChanged() {
-        mToDestroy = new SparseArray<ToDestroy>();
+        // Cached pages may show other data now
+        clearPageCache();
+        final int realCount = getRealCount();
+        if (!mVirtual || realCount == mVirtualRealCount || mVirtualRealCount == 0) {
+            mVirtualRealCount = realCount;
+            super.notifyDataSetChanged();
+            return;
+        }
+
+        // Every virtual position maps to another real page with the new count
+        final int realPosition = SpinningPositions.toVirtualRealPosition(mPrimaryPosition,
+                mVirtualRealCount);
+        mVirtualRemapping = true;
         super.notifyDataSetChanged();
+        mVirtualRemapping = false;
+        mVirtualRealCount = realCount;
+        if (realCount > 0 && mVirtualRecenterListener != null) {
+            mVirtualRecenterListener.onVirtualRecenter(
+                    getVirtualCenterPosition(Math.min(realPosition, realCount - 1)));
+        }
     }
 
-    int toRealPosition(int position) {
-        int realCount = getRealCount();
-        if (realCount == 0)
-            return 0;
-        int realPosition = (position-1) % realCount;
-        if (realPosition < 0)
-            realPosition += realCount;
+    @Override
+    public int getItemPosition(Object object) {
+        return mVirtualRemapping ? POSITION_NONE : super.getItemPosition(object);
+    }
+
+    private int getPageCacheCapacity() {
+        return Math.max(Math.max(mPageCacheSize, mMaxPrefetchPages), mBoundaryCaching ? 2 : 0);
+    }
 
-        return realPosition;
+    /**
+     * @return the position given to the inner adapter for the inner position,
+     * fragment adapters get the boundary pages too
+     */
+    private int getInnerAdapterPosition(int position) {
+        return isSharingFragments() || !isFragmentAdapter() ? toRealPosition(position) : position;
+    }
+
+    private boolean shouldCachePage(int position) {
+        if (mPageCacheSize > 0) {
+            return true;
+        }
+        return mBoundaryCaching && !mVirtual
+                && (position == getRealFirstPosition() || position == getRealLastPosition());
+    }
+
+    private void cachePage(ToDestroy toDestroy) {
+        final ToDestroy replaced = mToDestroy.put(toDestroy.position, toDestroy);
+        if (replaced != null && replaced.object != toDestroy.object) {
+            destroyCachedPage(replaced);
+        }
+
+        final int capacity = getPageCacheCapacity();
+        final Iterator<ToDestroy> eldest = mToDestroy.values().iterator();
+        while (mToDestroy.size() > capacity) {
+            final ToDestroy evicted = eldest.next();
+            eldest.remove();
+            destroyCachedPage(evicted);
+        }
+    }
+
+    /**
+     * Destroys the cached pages beyond the capacity, outside of a pager update.
+     */
+    private void trimPageCache() {
+        final int capacity = getPageCacheCapacity();
+        if (mToDestroy.size() <= capacity) {
+            return;
+        }
+
+        final Iterator<ToDestroy> eldest = mToDestroy.values().iterator();
+        while (mToDestroy.size() > capacity) {
+            final ToDestroy evicted = eldest.next();
+            eldest.remove();
+            mAdapter.startUpdate(evicted.container);
+            destroyCachedPage(evicted);
+            mAdapter.finishUpdate(evicted.container);
+        }
+    }
+
+    /**
+     * Destroys every cached page, outside of a pager update.
+     */
+    private void clearPageCache() {
+        if (mToDestroy.isEmpty()) {
+            return;
+        }
+
+        final ToDestroy[] cached = mToDestroy.values().toArray(new ToDestroy[mToDestroy.size()]);
+        mToDestroy.clear();
+        for (ToDestroy toDestroy : cached) {
+            mAdapter.startUpdate(toDestroy.container);
+            destroyCachedPage(toDestroy);
+            mAdapter.finishUpdate(toDestroy.container);
+        }
+    }
+
+    private void destroyCachedPage(ToDestroy toDestroy) {
+        destroyInnerItem(toDestroy.container, toDestroy.position, toDestroy.object);
+    }
+
+    int toRealPosition(int position) {
+        if (mVirtual) {
+            return SpinningPositions.toVirtualRealPosition(position, getRealCount());
+        }
+        return SpinningPositions.toRealPosition(position, getRealCount());
     }
 
     public int toInnerPosition(int realPosition) {
-        int position = (realPosition + 1);
-        return position;
+        if (mVirtual) {
+            return getVirtualCenterPosition(realPosition);
+        }
+        return SpinningPositions.toInnerPosition(realPosition);
     }
 
     private int getRealFirstPosition() {
@@ -85,6 +334,9 @@ public class LoopPagerAdapterWrapper extends PagerAdapter {
 
     @Override
     public int getCount() {
+        if (mVirtual) {
+            return SpinningPositions.virtualSets(getRealCount(), VIRTUAL_COUNT) * getRealCount();
+        }
         return mAdapter.getCount() + 2;
     }
 
@@ -98,33 +350,65 @@ public class LoopPagerAdapterWrapper extends PagerAdapter {
 
     @Override
     public Object instantiateItem(ViewGroup container, int position) {
-        int realPosition = (mAdapter instanceof FragmentPagerAdapter || mAdapter instanceof FragmentStatePagerAdapter)
-                ? position
-                : toRealPosition(position);
-
-        if (mBoundaryCaching) {
-            ToDestroy toDestroy = mToDestroy.get(position);
-            if (toDestroy != null) {
-                mToDestroy.remove(position);
-                return toDestroy.object;
+        int realPosition = getInnerAdapterPosition(position);
+        mActivePages.put(realPosition, mActivePages.get(realPosition) + 1);
+        if (isSharingFragments()) {
+            final Object active = mActiveFragments.get(realPosition);
+            if (active != null) {
+                return active;
             }
         }
-        return mAdapter.instantiateItem(container, realPosition);
+
+        final ToDestroy toDestroy = mToDestroy.remove(realPosition);
+        final Object object = toDestroy != null
+                ? toDestroy.object
+                : instantiateInnerItem(container, realPosition);
+        if (isSharingFragments()) {
+            mActiveFragments.put(realPosition, object);
+        }
+        return object;
+    }
+
+    private Object instantiateInnerItem(ViewGroup container, int realPosition) {
+        if (mMetricsListener == null) {
+            return mAdapter.instantiateItem(container, realPosition);
+        }
+        final long startNanos = System.nanoTime();
+        final Object object = mAdapter.instantiateItem(container, realPosition);
+        mMetricsListener.onPageInstantiated(realPosition, System.nanoTime() - startNanos);
+        return object;
     }
 
     @Override
     public void destroyItem(ViewGroup container, int position, Object object) {
-        int realFirst = getRealFirstPosition();
-        int realLast = getRealLastPosition();
-        int realPosition = (mAdapter instanceof FragmentPagerAdapter || mAdapter instanceof FragmentStatePagerAdapter)
-                ? position
-                : toRealPosition(position);
-
-        if (mBoundaryCaching && (position == realFirst || position == realLast)) {
-            mToDestroy.put(position, new ToDestroy(container, realPosition,
-                    object));
+        // Pages laid out for the former real count are destroyed with its positions
+        int realPosition = mVirtualRemapping
+                ? SpinningPositions.toVirtualRealPosition(position, mVirtualRealCount)
+                : getInnerAdapterPosition(position);
+        final int activePages = mActivePages.get(realPosition) - 1;
+        mActivePages.put(realPosition, activePages);
+        if (isSharingFragments()) {
+            if (activePages > 0) {
+                // Still shown by the other boundary page
+                return;
+            }
+            mActiveFragments.remove(realPosition);
+        }
+
+        if (shouldCachePage(position)) {
+            cachePage(new ToDestroy(container, realPosition, object));
+        } else {
+            destroyInnerItem(container, realPosition, object);
+        }
+    }
+
+    private void destroyInnerItem(ViewGroup container, int realPosition, Object object) {
+        if (mMetricsListener == null) {
+            mAdapter.destroyItem(container, realPosition, object);
         } else {
+            final long startNanos = System.nanoTime();
             mAdapter.destroyItem(container, realPosition, object);
+            mMetricsListener.onPageDestroyed(realPosition, System.nanoTime() - startNanos);
         }
     }
 
@@ -159,6 +443,7 @@ public class LoopPagerAdapterWrapper extends PagerAdapter {
 
     @Override
     public void setPrimaryItem(ViewGroup container, int position, Object object) {
+        mPrimaryPosition = position;
         mAdapter.setPrimaryItem(container, position, object);
     }
 
@@ -167,7 +452,7 @@ public class LoopPagerAdapterWrapper extends PagerAdapter {
      */
 
     /**
-     * Container class for caching the boundary views
+     * Container class for caching destroyed pages
      */
     static class ToDestroy {
         ViewGroup container;
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2015 eccyan <g00.eccyan@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eccyan.widget;
+
+import android.support.v4.view.ViewPager.OnPageChangeListener;
+
+import java.util.Arrays;
+
+/**
+ * Dispatches page changes to any number of listeners.
+ *
+ * Listeners are kept in a copy-on-write array, adding or removing one copies
+ * it while dispatching iterates it without allocating, even when a listener
+ * adds or removes listeners.
+ */
+final class PageChangeDispatcher implements OnPageChangeListener {
+
+    private static final OnPageChangeListener[] NO_LISTENERS = new OnPageChangeListener[0];
+
+    private OnPageChangeListener[] listeners = NO_LISTENERS;
+
+    void add(OnPageChangeListener listener) {
+        if (listener == null) {
+            return;
+        }
+        final OnPageChangeListener[] added = Arrays.copyOf(listeners, listeners.length + 1);
+        added[listeners.length] = listener;
+        listeners = added;
+    }
+
+    void remove(OnPageChangeListener listener) {
+        final OnPageChangeListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                final OnPageChangeListener[] removed = new OnPageChangeListener[current.length - 1];
+                System.arraycopy(current, 0, removed, 0, i);
+                System.arraycopy(current, i + 1, removed, i, removed.length - i);
+                listeners = removed;
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
+        final OnPageChangeListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            current[i].onPageScrolled(position, positionOffset, positionOffsetPixels);
+        }
+    }
+
+    @Override
+    public void onPageSelected(int position) {
+        final OnPageChangeListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            current[i].onPageSelected(position);
+        }
+    }
+
+    @Override
+    public void onPageScrollStateChanged(int state) {
+        final OnPageChangeListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            current[i].onPageScrollStateChanged(state);
+        }
+    }
+}
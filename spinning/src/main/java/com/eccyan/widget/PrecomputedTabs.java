@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2015 eccyan <g00.eccyan@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eccyan.widget;
+
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+
+import java.util.Locale;
+
+/**
+ * Title layouts and widths of text tabs measured off the main thread.
+ *
+ * The measurement is only valid for the titles and the text style it was made
+ * with, which the strip checks before using it.
+ */
+final class PrecomputedTabs {
+
+    private final CharSequence[] titles;
+
+    private final int textSize;
+
+    private final Typeface typeface;
+
+    private final int style;
+
+    private final int selectedStyle;
+
+    private final boolean allCaps;
+
+    private final Locale locale;
+
+    private final int tabPadding;
+
+    final int[] widths;
+
+    final Layout[] layouts;
+
+    private PrecomputedTabs(CharSequence[] titles, int textSize, Typeface typeface, int style,
+            int selectedStyle, boolean allCaps, Locale locale, int tabPadding) {
+        final int count = titles.length;
+        this.titles = titles;
+        this.textSize = textSize;
+        this.typeface = typeface;
+        this.style = style;
+        this.selectedStyle = selectedStyle;
+        this.allCaps = allCaps;
+        this.locale = locale;
+        this.tabPadding = tabPadding;
+        this.widths = new int[count];
+        this.layouts = new Layout[count];
+    }
+
+    /**
+     * Measures the titles, safe to call from any thread.
+     */
+    static PrecomputedTabs measure(CharSequence[] titles, int textSize, Typeface typeface,
+            int style, int selectedStyle, boolean allCaps, Locale locale, int tabPadding) {
+        final PrecomputedTabs tabs = new PrecomputedTabs(titles, textSize, typeface, style,
+                selectedStyle, allCaps, locale, tabPadding);
+
+        final TextPaint paint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+        paint.setTextSize(textSize);
+        TextTabsRenderer.applyTypeface(paint, typeface, style);
+        final TextPaint selectedPaint = new TextPaint(paint);
+        TextTabsRenderer.applyTypeface(selectedPaint, typeface, selectedStyle);
+
+        for (int i = 0; i < titles.length; i++) {
+            CharSequence title = titles[i] != null ? titles[i] : "";
+            if (allCaps) {
+                title = title.toString().toUpperCase(locale);
+            }
+            final float width = Layout.getDesiredWidth(title, paint);
+            final float selectedWidth = Layout.getDesiredWidth(title, selectedPaint);
+            tabs.widths[i] = (int) Math.ceil(Math.max(width, selectedWidth)) + tabPadding * 2;
+            tabs.layouts[i] = new StaticLayout(title, paint, (int) Math.ceil(width),
+                    Layout.Alignment.ALIGN_NORMAL, 1f, 0f, false);
+        }
+        return tabs;
+    }
+
+    int getCount() {
+        return widths.length;
+    }
+
+    boolean matches(CharSequence[] titles, int textSize, Typeface typeface, int style,
+            int selectedStyle, boolean allCaps, Locale locale, int tabPadding) {
+        return matchesTitles(titles)
+                && this.textSize == textSize
+                && this.typeface == typeface
+                && this.style == style
+                && this.selectedStyle == selectedStyle
+                && this.allCaps == allCaps
+                && (this.locale == null ? locale == null : this.locale.equals(locale))
+                && this.tabPadding == tabPadding;
+    }
+
+    private boolean matchesTitles(CharSequence[] titles) {
+        if (this.titles.length != titles.length) {
+            return false;
+        }
+        for (int i = 0; i < titles.length; i++) {
+            if (!TextUtils.equals(this.titles[i], titles[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
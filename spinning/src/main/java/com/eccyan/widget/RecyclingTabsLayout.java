@@ -0,0 +1,516 @@
+/*
+ * Copyright (C) 2015 eccyan <g00.eccyan@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eccyan.widget;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.util.SparseArray;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A tabs container for SpinningTabStrip which only materializes the tabs
+ * intersecting the viewport.
+ *
+ * Every tab is measured once per real position and all of its dummy copies
+ * share that width, so the container spans the whole spinning width while
+ * holding a handful of child views. Tabs scrolled out of the viewport go to a
+ * scrap heap and are bound again to the positions scrolling in. Tabs which
+ * can only show their own position, e.g. custom tabs, are kept while their
+ * position is near the viewport and created again otherwise.
+ *
+ * With a {@link TabMeasurer} no tab is materialized at all, the container
+ * only provides the geometry of tabs drawn by somebody else.
+ */
+class RecyclingTabsLayout extends ViewGroup {
+
+    /**
+     * Creates and binds tab views on behalf of the container.
+     */
+    interface TabBinder {
+
+        /**
+         * @return a key grouping interchangeable tab views, or {@link #TYPE_ANY}
+         * if any scrapped tab can be bound to the position
+         */
+        int getTabType(int position);
+
+        /**
+         * @param tabsWidth natural width of one set of tabs
+         * @return the number of sets of tabs to lay out
+         */
+        int getTabCopies(int tabsWidth);
+
+        View createTab(ViewGroup parent, int position);
+
+        void bindTab(View tab, int position, int realPosition);
+    }
+
+    /**
+     * Provides the tab sizes when tabs aren't backed by child views.
+     */
+    interface TabMeasurer {
+
+        int getTabWidth(int position);
+
+        int getTabHeight();
+    }
+
+    static final int TYPE_ANY = -1;
+
+    private static final int UNMEASURED = -1;
+
+    // Tabs kept materialized on each side of the viewport
+    private static final int OFFSCREEN_TABS = 1;
+
+    private final TabBinder binder;
+
+    private TabMeasurer measurer;
+
+    private final SparseArray<View> activeTabs = new SparseArray<View>();
+
+    private final SparseArray<ArrayList<View>> scrapTabs = new SparseArray<ArrayList<View>>();
+
+    private int tabCount;
+
+    private int copies;
+
+    private int[] naturalWidths = new int[0];
+
+    private int[] tabWidths = new int[0];
+
+    // tabOffsets[i] is the left edge of the tab i inside one set of tabs
+    private int[] tabOffsets = new int[1];
+
+    private int tabsWidth;
+
+    private int naturalHeight;
+
+    private boolean widthsValid;
+
+    private boolean shouldExpand;
+
+    private int viewportLeft;
+
+    private int viewportWidth;
+
+    RecyclingTabsLayout(Context context, TabBinder binder) {
+        super(context);
+        this.binder = binder;
+    }
+
+    /**
+     * @param copies number of sets of tabs until the tabs are measured
+     */
+    void setTabCount(int tabCount, int copies) {
+        removeAllViewsInLayout();
+        activeTabs.clear();
+        scrapTabs.clear();
+
+        this.tabCount = tabCount;
+        this.copies = copies;
+        naturalWidths = new int[tabCount];
+        naturalHeight = 0;
+        Arrays.fill(naturalWidths, UNMEASURED);
+        resizeTabs();
+    }
+
+    /**
+     * Only the inserted tabs are measured, the materialized tabs are bound
+     * again to their shifted positions.
+     */
+    void insertTabs(int positionStart, int itemCount) {
+        recycleTabs();
+        naturalWidths = TabRanges.insert(naturalWidths, positionStart, itemCount, UNMEASURED);
+        tabCount += itemCount;
+        resizeTabs();
+    }
+
+    void removeTabs(int positionStart, int itemCount) {
+        recycleTabs();
+        naturalWidths = TabRanges.remove(naturalWidths, positionStart, itemCount);
+        tabCount -= itemCount;
+        resizeTabs();
+    }
+
+    void moveTabs(int fromPosition, int toPosition, int itemCount) {
+        recycleTabs();
+        TabRanges.move(naturalWidths, fromPosition, toPosition, itemCount);
+        resizeTabs();
+    }
+
+    private void resizeTabs() {
+        tabWidths = new int[tabCount];
+        tabOffsets = new int[tabCount + 1];
+        tabsWidth = 0;
+        widthsValid = false;
+        requestLayout();
+    }
+
+    private void recycleTabs() {
+        for (int i = 0; i < activeTabs.size(); i++) {
+            final View tab = activeTabs.valueAt(i);
+            final int position = activeTabs.keyAt(i) % tabCount;
+            removeViewInLayout(tab);
+            if (binder.getTabType(position) == TYPE_ANY) {
+                scrapTab(tab, position);
+            }
+        }
+        activeTabs.clear();
+
+        // Scrapped tabs of other types are bound to positions which don't exist anymore
+        final ArrayList<View> scrap = scrapTabs.get(TYPE_ANY);
+        scrapTabs.clear();
+        if (scrap != null) {
+            scrapTabs.put(TYPE_ANY, scrap);
+        }
+    }
+
+    void setTabMeasurer(TabMeasurer measurer) {
+        this.measurer = measurer;
+        invalidateTabWidths();
+    }
+
+    /**
+     * Uses widths measured ahead of time instead of measuring the tabs.
+     */
+    void setNaturalWidths(int[] widths) {
+        System.arraycopy(widths, 0, naturalWidths, 0, tabCount);
+        widthsValid = false;
+        requestLayout();
+    }
+
+    void setShouldExpand(boolean shouldExpand) {
+        this.shouldExpand = shouldExpand;
+        requestLayout();
+    }
+
+    /**
+     * Measures all tabs again on the next layout pass, e.g. after the text
+     * size or the padding changed.
+     */
+    void invalidateTabWidths() {
+        Arrays.fill(naturalWidths, UNMEASURED);
+        naturalHeight = 0;
+        widthsValid = false;
+        requestLayout();
+    }
+
+    /**
+     * Measures the tab at position again on the next layout pass, e.g. after
+     * its title changed.
+     */
+    void invalidateTabWidth(int position) {
+        naturalWidths[position] = UNMEASURED;
+        widthsValid = false;
+        requestLayout();
+    }
+
+    /**
+     * Binds all materialized tabs again, e.g. after the tab styles changed.
+     */
+    void rebindTabs() {
+        for (int i = 0; i < activeTabs.size(); i++) {
+            final int realPosition = activeTabs.keyAt(i);
+            binder.bindTab(activeTabs.valueAt(i), realPosition % tabCount, realPosition);
+        }
+    }
+
+    /**
+     * Binds the materialized copies of the tab at position again.
+     */
+    void rebindTab(int position) {
+        for (int copy = 0; copy < copies; copy++) {
+            final int realPosition = copy * tabCount + position;
+            final View tab = activeTabs.get(realPosition);
+            if (tab != null) {
+                binder.bindTab(tab, position, realPosition);
+            }
+        }
+    }
+
+    void setViewport(int left, int width) {
+        viewportLeft = left;
+        viewportWidth = width;
+        fill();
+    }
+
+    View getTabAt(int realPosition) {
+        return activeTabs.get(realPosition);
+    }
+
+    int getTabPosition(View tab) {
+        return ((LayoutParams) tab.getLayoutParams()).realPosition;
+    }
+
+    int getTabLeft(int realPosition) {
+        if (tabCount == 0) {
+            return 0;
+        }
+        return (realPosition / tabCount) * tabsWidth + tabOffsets[realPosition % tabCount];
+    }
+
+    int getTabWidth(int realPosition) {
+        if (tabCount == 0) {
+            return 0;
+        }
+        return tabWidths[realPosition % tabCount];
+    }
+
+    /**
+     * @return the real position of the tab under x, clamped to the spinning width
+     */
+    int getTabPositionAt(int x) {
+        if (tabCount == 0 || tabsWidth == 0) {
+            return 0;
+        }
+        final int realCount = tabCount * copies;
+        if (x <= 0) {
+            return 0;
+        }
+        if (x >= tabsWidth * copies) {
+            return realCount - 1;
+        }
+
+        final int set = x / tabsWidth;
+        return set * tabCount + TabRanges.findTab(tabOffsets, tabCount, x - set * tabsWidth);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (!widthsValid) {
+            measureTabs(heightMeasureSpec);
+        }
+
+        int naturalTabsWidth = 0;
+        for (int i = 0; i < tabCount; i++) {
+            naturalTabsWidth += naturalWidths[i];
+        }
+        final int tabCopies = binder.getTabCopies(naturalTabsWidth);
+        if (tabCopies != copies) {
+            recycleTabs();
+            copies = tabCopies;
+        }
+        int width = naturalTabsWidth * copies;
+        if (MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.EXACTLY) {
+            width = MeasureSpec.getSize(widthMeasureSpec);
+        }
+        int height = naturalHeight;
+        if (MeasureSpec.getMode(heightMeasureSpec) != MeasureSpec.UNSPECIFIED) {
+            height = resolveSize(naturalHeight, heightMeasureSpec);
+        }
+
+        // Same as weighted tabs in a LinearLayout, tabs share the width evenly
+        final int realCount = tabCount * copies;
+        final boolean expand = shouldExpand && realCount > 0 && width > naturalTabsWidth * copies;
+        tabOffsets[0] = 0;
+        for (int i = 0; i < tabCount; i++) {
+            tabWidths[i] = expand ? width / realCount : naturalWidths[i];
+            tabOffsets[i + 1] = tabOffsets[i] + tabWidths[i];
+        }
+        tabsWidth = tabOffsets[tabCount];
+
+        setMeasuredDimension(width, height);
+
+        for (int i = 0; i < activeTabs.size(); i++) {
+            measureTab(activeTabs.valueAt(i), activeTabs.keyAt(i));
+        }
+    }
+
+    private void measureTabs(int heightMeasureSpec) {
+        if (measurer != null) {
+            naturalHeight = measurer.getTabHeight();
+            for (int i = 0; i < tabCount; i++) {
+                if (naturalWidths[i] == UNMEASURED) {
+                    naturalWidths[i] = measurer.getTabWidth(i);
+                }
+            }
+            widthsValid = true;
+            return;
+        }
+
+        final int widthSpec = MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+        final int heightSpec = getChildMeasureSpec(heightMeasureSpec, 0, LayoutParams.MATCH_PARENT);
+
+        for (int i = 0; i < tabCount; i++) {
+            if (naturalWidths[i] != UNMEASURED) {
+                continue;
+            }
+            final View tab = obtainTab(i);
+            binder.bindTab(tab, i, i);
+            tab.measure(widthSpec, heightSpec);
+            naturalWidths[i] = tab.getMeasuredWidth();
+            naturalHeight = Math.max(naturalHeight, tab.getMeasuredHeight());
+            scrapTab(tab, i);
+        }
+
+        // Precomputed widths don't tell the height
+        if (naturalHeight == 0 && tabCount > 0) {
+            final View tab = obtainTab(0);
+            binder.bindTab(tab, 0, 0);
+            tab.measure(widthSpec, heightSpec);
+            naturalHeight = tab.getMeasuredHeight();
+            scrapTab(tab, 0);
+        }
+        widthsValid = true;
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        for (int i = 0; i < activeTabs.size(); i++) {
+            layoutTab(activeTabs.valueAt(i), activeTabs.keyAt(i));
+        }
+        fill();
+    }
+
+    private void fill() {
+        if (measurer != null || tabCount == 0 || tabsWidth == 0 || getHeight() == 0) {
+            return;
+        }
+
+        final int realCount = tabCount * copies;
+        final int first = Math.max(0, getTabPositionAt(viewportLeft) - OFFSCREEN_TABS);
+        final int last = Math.min(realCount - 1,
+                getTabPositionAt(viewportLeft + viewportWidth) + OFFSCREEN_TABS);
+
+        boolean changed = false;
+        for (int i = activeTabs.size() - 1; i >= 0; i--) {
+            final int realPosition = activeTabs.keyAt(i);
+            if (realPosition < first || realPosition > last) {
+                final View tab = activeTabs.valueAt(i);
+                activeTabs.removeAt(i);
+                removeViewInLayout(tab);
+                scrapTab(tab, realPosition % tabCount);
+                changed = true;
+            }
+        }
+
+        for (int realPosition = first; realPosition <= last; realPosition++) {
+            if (activeTabs.get(realPosition) != null) {
+                continue;
+            }
+            final int position = realPosition % tabCount;
+            final View tab = obtainTab(position);
+            ((LayoutParams) tab.getLayoutParams()).realPosition = realPosition;
+            binder.bindTab(tab, position, realPosition);
+            addViewInLayout(tab, -1, tab.getLayoutParams(), true);
+            activeTabs.put(realPosition, tab);
+            measureTab(tab, realPosition);
+            layoutTab(tab, realPosition);
+            changed = true;
+        }
+
+        trimScrapTabs(first, last);
+        if (changed) {
+            invalidate();
+        }
+    }
+
+    /**
+     * Drops scrapped tabs bound to their own position, e.g. custom tabs, unless
+     * the position is materialized between first and last, so that they don't
+     * pile up to one view per position.
+     */
+    private void trimScrapTabs(int first, int last) {
+        if (last - first + 1 >= tabCount) {
+            return;
+        }
+        final int firstPosition = first % tabCount;
+        for (int i = scrapTabs.size() - 1; i >= 0; i--) {
+            final int type = scrapTabs.keyAt(i);
+            if (type == TYPE_ANY) {
+                continue;
+            }
+            // The type of these tabs is their position
+            if ((type - firstPosition + tabCount) % tabCount > last - first) {
+                scrapTabs.removeAt(i);
+            }
+        }
+    }
+
+    private void measureTab(View tab, int realPosition) {
+        tab.measure(MeasureSpec.makeMeasureSpec(getTabWidth(realPosition), MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(getMeasuredHeight(), MeasureSpec.EXACTLY));
+    }
+
+    private void layoutTab(View tab, int realPosition) {
+        final int left = getTabLeft(realPosition);
+        tab.layout(left, 0, left + tab.getMeasuredWidth(), tab.getMeasuredHeight());
+    }
+
+    private View obtainTab(int position) {
+        final ArrayList<View> scrap = scrapTabs.get(binder.getTabType(position));
+        if (scrap != null && !scrap.isEmpty()) {
+            // A tab last bound to the same position needs no new title
+            for (int i = scrap.size() - 1; i >= 0; i--) {
+                if (((LayoutParams) scrap.get(i).getLayoutParams()).realPosition % tabCount
+                        == position) {
+                    return scrap.remove(i);
+                }
+            }
+            return scrap.remove(scrap.size() - 1);
+        }
+
+        final View tab = binder.createTab(this, position);
+        if (!(tab.getLayoutParams() instanceof LayoutParams)) {
+            tab.setLayoutParams(generateDefaultLayoutParams());
+        }
+        return tab;
+    }
+
+    private void scrapTab(View tab, int position) {
+        final int type = binder.getTabType(position);
+        ArrayList<View> scrap = scrapTabs.get(type);
+        if (scrap == null) {
+            scrap = new ArrayList<View>();
+            scrapTabs.put(type, scrap);
+        }
+        scrap.add(tab);
+    }
+
+    @Override
+    protected LayoutParams generateDefaultLayoutParams() {
+        return new LayoutParams();
+    }
+
+    @Override
+    public LayoutParams generateLayoutParams(AttributeSet attrs) {
+        return new LayoutParams();
+    }
+
+    @Override
+    protected LayoutParams generateLayoutParams(ViewGroup.LayoutParams p) {
+        return new LayoutParams();
+    }
+
+    @Override
+    protected boolean checkLayoutParams(ViewGroup.LayoutParams p) {
+        return p instanceof LayoutParams;
+    }
+
+    static class LayoutParams extends ViewGroup.LayoutParams {
+
+        int realPosition;
+
+        LayoutParams() {
+            super(WRAP_CONTENT, MATCH_PARENT);
+        }
+    }
+}
@@ -18,26 +18,31 @@
 package com.eccyan.widget;
 
 import android.annotation.SuppressLint;
+import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.res.ColorStateList;
 import android.content.res.TypedArray;
 import android.database.DataSetObserver;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.Paint.Style;
 import android.graphics.Typeface;
+import android.os.AsyncTask;
 import android.os.Build;
 import android.os.Parcel;
 import android.os.Parcelable;
-import android.support.v4.util.Pair;
+import android.support.v4.view.ViewCompat;
 import android.support.v4.view.ViewPager;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
 import android.util.Log;
 import android.util.TypedValue;
+import android.view.Choreographer;
 import android.view.GestureDetector;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
+import android.view.SoundEffectConstants;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.ViewTreeObserver.OnGlobalLayoutListener;
@@ -47,6 +52,7 @@ import android.widget.Scroller;
 import android.widget.TextView;
 
 import java.util.Locale;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static android.support.v4.view.ViewPager.OnPageChangeListener;
@@ -57,14 +63,35 @@ public class SpinningTabStrip extends HorizontalScrollView {
 
     private static final String TAG = SpinningTabStrip.class.getSimpleName();
 
+    // Wider tab sets aren't cached, they wouldn't fit in a texture
+    private static final int MAX_TAB_TILE_WIDTH = 2048;
+
+    /**
+     * Drives flings on the frame clock, advancing exactly once per vsync.
+     *
+     * The fling runs on an unbounded logical scroll coordinate which is mapped
+     * into the real set of tabs on every frame, so it spins across the ends of
+     * the strip without being restarted.
+     *
+     * Frames come from the Choreographer from Jelly Bean on, before that the
+     * flinger runs itself as an animation runnable.
+     */
     public class Flinger implements Runnable {
 
         private final Scroller scroller;
 
+        private final FlingerFrameCallback frameCallback;
+
         private Runnable onComplete;
 
+        private boolean frameScheduled;
+
+        private long lastFrameTimeNanos;
+
         Flinger() {
             scroller = new Scroller(getContext());
+            frameCallback = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN
+                    ? new FlingerFrameCallback(this) : null;
         }
 
         void start(int x, int velocity) {
@@ -77,10 +104,16 @@ public class SpinningTabStrip extends HorizontalScrollView {
             this.onComplete = onComplete;
             scroller.fling(x, getScrollY(), velocity, 0,
                     Integer.MIN_VALUE, Integer.MAX_VALUE, 0, 0);
-            post(this);
+            lastFrameTimeNanos = 0;
+            scheduleFrame();
         }
 
         public void run() {
+            doFrame(System.nanoTime());
+        }
+
+        void doFrame(long frameTimeNanos) {
+            frameScheduled = false;
             if (scroller.isFinished()) {
                 if (onComplete != null) {
                     post(onComplete);
@@ -88,11 +121,48 @@ public class SpinningTabStrip extends HorizontalScrollView {
                 return;
             }
 
+            if (flingFrameListener != null && lastFrameTimeNanos != 0) {
+                flingFrameListener.onFlingFrame(frameTimeNanos,
+                        frameTimeNanos - lastFrameTimeNanos);
+            }
+            lastFrameTimeNanos = frameTimeNanos;
+
             final boolean shouldUpdate = scroller.computeScrollOffset();
-            scrollTo(scroller.getCurrX(), scroller.getCurrY());
+            flingScrolling = true;
+            scrollTo(toPhysicalScrollX(scroller.getCurrX()), scroller.getCurrY());
+            flingScrolling = false;
 
             if (shouldUpdate) {
-                post(this);
+                scheduleFrame();
+            }
+        }
+
+        private void scheduleFrame() {
+            // A restarted fling must not advance twice in the same frame
+            if (frameScheduled) {
+                return;
+            }
+            frameScheduled = true;
+            if (frameCallback != null) {
+                frameCallback.post();
+            } else {
+                ViewCompat.postOnAnimation(SpinningTabStrip.this, this);
+            }
+        }
+
+        /**
+         * Stops the fling and drops the scheduled frame, e.g. when detached from window.
+         */
+        void cancel() {
+            forceFinished(true);
+            if (!frameScheduled) {
+                return;
+            }
+            frameScheduled = false;
+            if (frameCallback != null) {
+                frameCallback.remove();
+            } else {
+                removeCallbacks(this);
             }
         }
 
@@ -111,6 +181,80 @@ public class SpinningTabStrip extends HorizontalScrollView {
         }
     }
 
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static class FlingerFrameCallback implements Choreographer.FrameCallback {
+
+        private final Flinger flinger;
+
+        FlingerFrameCallback(Flinger flinger) {
+            this.flinger = flinger;
+        }
+
+        void post() {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        void remove() {
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            flinger.doFrame(frameTimeNanos);
+        }
+    }
+
+    public interface OnFlingFrameListener {
+
+        /**
+         * Called on every frame of a fling driven by the strip.
+         *
+         * @param frameTimeNanos     time of the frame, in the System.nanoTime() time base
+         * @param frameIntervalNanos time elapsed since the previous frame of the fling
+         */
+        void onFlingFrame(long frameTimeNanos, long frameIntervalNanos);
+    }
+
+    /**
+     * Reports what the strip costs, e.g. to telemetry. Callbacks come on the
+     * main thread and should return quickly, nothing is measured without a
+     * listener.
+     */
+    public interface MetricsListener {
+
+        /**
+         * Called after the tabs are rebuilt for the adapter data.
+         */
+        void onTabsRebuilt(int tabCount, long durationNanos);
+
+        /**
+         * Called when a tab view is inflated or provided by the adapter.
+         */
+        void onTabViewCreated(int position);
+
+        /**
+         * Called when a drag reaching an end of the strip jumps to the same tabs in another copy.
+         */
+        void onInfiniteWrap(int fromScrollX, int toScrollX);
+
+        /**
+         * Called when the strip starts a fling.
+         */
+        void onFlingStarted(int velocityX);
+
+        /**
+         * Called after the strip and its tabs are drawn.
+         */
+        void onFrameDrawn(long durationNanos);
+
+        /**
+         * Called when the pager comes to rest, with the redraws its scroll caused
+         * since it left rest: full ones for a scrolled strip and partial ones
+         * for a moved indicator only.
+         */
+        void onPageScrollInvalidations(int fullInvalidations, int partialInvalidations);
+    }
+
     public interface CustomTabProvider {
 
         View getCustomTabView(ViewGroup parent, int position);
@@ -125,7 +269,14 @@ public class SpinningTabStrip extends HorizontalScrollView {
 
     private static final float HALF_TRANSP = 0.5f;
 
-    private static final int DUMMY_TAB_RATE = 4;
+    // Used until the width of the tabs is known
+    private static final int DEFAULT_TAB_COPIES = 4;
+
+    // The real tabs and a dummy copy on each side are needed for seamless wrap
+    private static final int MIN_TAB_COPIES = 3;
+
+    // Tag of tab views without R.id.tab_title, so that they are searched only once
+    private static final Object NO_TAB_TITLE = new Object();
 
     // @formatter:off
     private static final int[] ATTRS = new int[]{
@@ -139,6 +290,25 @@ public class SpinningTabStrip extends HorizontalScrollView {
 
     private final PagerAdapterObserver adapterObserver = new PagerAdapterObserver();
 
+    // Adapter changes of a frame are rebuilt once on the next animation frame
+    private boolean tabsRebuildPending = false;
+
+    private final Runnable tabsRebuildRunnable = new Runnable() {
+
+        @Override
+        public void run() {
+            if (tabsRebuildPending) {
+                notifyDataSetChanged();
+            }
+        }
+    };
+
+    private boolean scrollToCurrentItemPending = false;
+
+    private boolean restyleOnLayout = false;
+
+    private boolean firstTabLayoutPending = false;
+
     //These indexes must be related with the ATTR array above
     private static final int TEXT_SIZE_INDEX = 0;
 
@@ -154,27 +324,57 @@ public class SpinningTabStrip extends HorizontalScrollView {
 
     private OnTabReselectedListener tabReselectedListener = null;
 
+    private OnFlingFrameListener flingFrameListener = null;
+
+    private MetricsListener metricsListener = null;
+
     public OnPageChangeListener delegatePageListener;
 
-    private LinearLayout tabsContainer;
+    private final PageChangeDispatcher pageChangeListeners = new PageChangeDispatcher();
 
-    private GestureDetector gestureDetector;
+    private ViewGroup tabsContainer;
+
+    // Same instance as tabsContainer while recycling tabs, otherwise null
+    private RecyclingTabsLayout recyclingTabsContainer;
 
-    // For tracking flinging velocity
-    private Scroller flingVelocity;
+    private GestureDetector gestureDetector;
 
     private Flinger flinger;
 
+    // The flinger scrolls into the real set of tabs by itself, no need to wrap
+    private boolean flingScrolling = false;
+
     private ViewPager pager;
 
     private int tabCount;
 
     private int realTabCount;
 
+    // Number of sets of tabs, i.e. the real tabs and their dummy copies
+    private int tabCopies = DEFAULT_TAB_COPIES;
+
+    private int sideCount = 0;
+
+    private int showTabsCount = 0;
+
+    // Title views of the tabs indexed by real position, unused while recycling tabs
+    private TextView[] tabTitles = new TextView[0];
+
+    // Page titles fetched once per position, shared by all copies of a tab
+    private CharSequence[] pageTitles = new CharSequence[0];
+
     private int currentPosition = 0;
 
+    // Position whose tabs are in the selected state, or -1
+    private int selectedPosition = -1;
+
     private float currentPositionOffset = 0f;
 
+    // Updated by updateIndicatorCoordinates() instead of allocating on every frame
+    private float indicatorLeft;
+
+    private float indicatorRight;
+
     private Paint rectPaint;
 
     private Paint dividerPaint;
@@ -193,6 +393,11 @@ public class SpinningTabStrip extends HorizontalScrollView {
 
     private int dividerColor;
 
+    // x0, y0, x1, y1 of every divider in tab order, rebuilt when the layout changes
+    private float[] dividerLines = new float[0];
+
+    private boolean dividerLinesValid = false;
+
     private int tabPadding = 12;
 
     private int tabTextSize = 14;
@@ -207,6 +412,27 @@ public class SpinningTabStrip extends HorizontalScrollView {
 
     private boolean textAllCaps = true;
 
+    private boolean recycleTabs = false;
+
+    private boolean drawTextTabs = false;
+
+    private final TextTabsRenderer textTabsRenderer = new TextTabsRenderer();
+
+    private boolean cacheTabsOnFling = false;
+
+    // One set of tabs rendered while flinging, drawn at every visible copy
+    private Bitmap tabTile;
+
+    private boolean tabTileValid = false;
+
+    // tabEdges[i] is the left edge of the tab view i, then the right edge of the last one
+    private int[] tabEdges = new int[1];
+
+    private boolean tabEdgesValid = false;
+
+    // Measured in the background, used once by the next rebuild
+    private PrecomputedTabs precomputedTabs;
+
     private Typeface tabTypeface = null;
 
     private int tabTypefaceStyle = Typeface.BOLD;
@@ -217,6 +443,13 @@ public class SpinningTabStrip extends HorizontalScrollView {
 
     private int lastScrollX = 0;
 
+    private int pageScrollState = SCROLL_STATE_IDLE;
+
+    // Redraws caused by pager scrolls since the pager left rest
+    private int fullInvalidations = 0;
+
+    private int partialInvalidations = 0;
+
     private AtomicBoolean scrollStopped = new AtomicBoolean();
 
     private int tabBackgroundResId = R.drawable.background_tab;
@@ -235,43 +468,30 @@ public class SpinningTabStrip extends HorizontalScrollView {
         super(context, attrs, defStyle);
         setFillViewport(true);
         setWillNotDraw(false);
-        tabsContainer = new LinearLayout(context);
-        tabsContainer.setOrientation(LinearLayout.HORIZONTAL);
-        tabsContainer.setLayoutParams(
-                new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT));
-        addView(tabsContainer);
 
-        flingVelocity = new Scroller(getContext());
         flinger = new Flinger();
         gestureDetector = new GestureDetector(getContext(),
                 new GestureDetector.SimpleOnGestureListener() {
-                    @Override
-                    public boolean onFling(MotionEvent e1, MotionEvent e2,
-                            float velocityX, float velocityY) {
-
-                        flingVelocity.forceFinished(true);
-                        flingVelocity.fling(getScrollX(), getScrollY(),
-                                -(int) velocityX, -(int) velocityY,
-                                Integer.MIN_VALUE, Integer.MAX_VALUE, 0, getHeight());
-
-                        scrollStopped.set(false);
-                        Log.d(TAG, "scroll fling started");
-
-                        return true;
-                    }
-
                     @Override
                     public boolean onDown(MotionEvent e) {
-                        if (!flingVelocity.isFinished()) {
-                            flingVelocity.forceFinished(true);
-                        }
-
                         if (!flinger.isFinished()) {
                             flinger.forceFinished(true);
                         }
 
                         return super.onDown(e);
                     }
+
+                    @Override
+                    public boolean onSingleTapUp(MotionEvent e) {
+                        if (!isDrawingTextTabs() || tabCount == 0) {
+                            return false;
+                        }
+
+                        final int x = (int) e.getX() + getScrollX();
+                        playSoundEffect(SoundEffectConstants.CLICK);
+                        onTabClick(getTabPositionAt(x));
+                        return true;
+                    }
                 });
 
         DisplayMetrics dm = getResources().getDisplayMetrics();
@@ -337,9 +557,16 @@ public class SpinningTabStrip extends HorizontalScrollView {
         tabTextAlpha = a.getFloat(R.styleable.SpinningTabStrip_pstsTextAlpha, HALF_TRANSP);
         tabTextSelectedAlpha = a
                 .getFloat(R.styleable.SpinningTabStrip_pstsTextSelectedAlpha, OPAQUE);
+        recycleTabs = a.getBoolean(R.styleable.SpinningTabStrip_pstsRecycleTabs, recycleTabs);
+        drawTextTabs = a.getBoolean(R.styleable.SpinningTabStrip_pstsDrawTextTabs, drawTextTabs);
+        cacheTabsOnFling = a
+                .getBoolean(R.styleable.SpinningTabStrip_pstsCacheTabsOnFling, cacheTabsOnFling);
+        sideCount = a.getInt(R.styleable.SpinningTabStrip_pstsSideCount, sideCount);
+        showTabsCount = a.getInt(R.styleable.SpinningTabStrip_pstsShowTabsCount, showTabsCount);
 
         a.recycle();
 
+        createTabsContainer();
         setMarginBottomTabContainer();
 
         rectPaint = new Paint();
@@ -360,6 +587,26 @@ public class SpinningTabStrip extends HorizontalScrollView {
 
     }
 
+    private void createTabsContainer() {
+        if (tabsContainer != null) {
+            removeView(tabsContainer);
+        }
+
+        if (recycleTabs || drawTextTabs) {
+            recyclingTabsContainer = new RecyclingTabsLayout(getContext(), tabBinder);
+            recyclingTabsContainer.setShouldExpand(shouldExpand);
+            tabsContainer = recyclingTabsContainer;
+        } else {
+            LinearLayout linearLayout = new LinearLayout(getContext());
+            linearLayout.setOrientation(LinearLayout.HORIZONTAL);
+            recyclingTabsContainer = null;
+            tabsContainer = linearLayout;
+        }
+        tabsContainer.setLayoutParams(
+                new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT));
+        addView(tabsContainer);
+    }
+
     private void setMarginBottomTabContainer() {
         ViewGroup.MarginLayoutParams mlp = (MarginLayoutParams) tabsContainer.getLayoutParams();
         int bottomMargin = indicatorHeight >= underlineHeight ? indicatorHeight : underlineHeight;
@@ -368,129 +615,687 @@ public class SpinningTabStrip extends HorizontalScrollView {
     }
 
     public void setViewPager(ViewPager pager) {
-        this.pager = pager;
         if (pager.getAdapter() == null) {
             throw new IllegalStateException("ViewPager does not have adapter instance.");
         }
+        if (this.pager instanceof SpinningViewPager) {
+            ((SpinningViewPager) this.pager).removeOnPageChangeListener(pageListener);
+        }
+        this.pager = pager;
 
-        pager.setOnPageChangeListener(pageListener);
+        // Leaves the single listener slot of SpinningViewPager to the app
+        if (pager instanceof SpinningViewPager) {
+            ((SpinningViewPager) pager).addOnPageChangeListener(pageListener);
+        } else {
+            pager.setOnPageChangeListener(pageListener);
+        }
         pager.getAdapter().registerDataSetObserver(adapterObserver);
         adapterObserver.setAttached(true);
         notifyDataSetChanged();
     }
 
-    public void notifyDataSetChanged() {
-        tabsContainer.removeAllViews();
-        tabCount = pager.getAdapter().getCount();
-        realTabCount = tabCount * DUMMY_TAB_RATE;
-        View tabView;
-        for (int i = 0; i < realTabCount; i++) {
-            if (pager.getAdapter() instanceof CustomTabProvider) {
-                tabView = ((CustomTabProvider) pager.getAdapter())
-                        .getCustomTabView(this, i % tabCount);
-            } else {
-                tabView = LayoutInflater.from(getContext()).inflate(R.layout.tab, this, false);
+    public void notifyDataSetChanged() {
+        final long startNanos = metricsListener != null ? System.nanoTime() : 0;
+        cancelTabsRebuild();
+        selectedPosition = -1;
+        invalidateTabTile();
+        tabEdgesValid = false;
+        tabCount = pager.getAdapter().getCount();
+        realTabCount = tabCount * tabCopies;
+        pageTitles = new CharSequence[tabCount];
+        for (int i = 0; i < tabCount; i++) {
+            pageTitles[i] = pager.getAdapter().getPageTitle(i);
+        }
+        final PrecomputedTabs precomputed = takePrecomputedTabs();
+        if (recyclingTabsContainer != null) {
+            if (isDrawingTextTabs()) {
+                textTabsRenderer.setTitles(pageTitles.clone());
+                updateTextTabsStyle();
+                if (precomputed != null) {
+                    textTabsRenderer.applyPrecomputed(precomputed);
+                }
+                recyclingTabsContainer.setTabMeasurer(textTabsRenderer);
+            } else {
+                recyclingTabsContainer.setTabMeasurer(null);
+            }
+            // Tabs are created and styled while binding to the viewport
+            recyclingTabsContainer.setTabCount(tabCount, tabCopies);
+            if (precomputed != null) {
+                recyclingTabsContainer.setNaturalWidths(precomputed.widths);
+            }
+        } else {
+            tabsContainer.removeAllViews();
+            // The real tabs are measured first to know how many copies are needed
+            final int widthSpec = MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+            int tabsWidth = 0;
+            for (int i = 0; i < tabCount; i++) {
+                View tabView = createTabView(i);
+
+                addTab(i, pageTitles[i], tabView);
+                updateTabStyle(tabView, findTabTitle(tabView), i);
+                if (precomputed != null) {
+                    tabsWidth += precomputed.widths[i];
+                } else {
+                    tabView.measure(widthSpec, widthSpec);
+                    tabsWidth += tabView.getMeasuredWidth();
+                }
+            }
+
+            tabCopies = resolveTabCopies(tabsWidth);
+            realTabCount = tabCount * tabCopies;
+            for (int i = tabCount; i < realTabCount; i++) {
+                View tabView = createTabView(i % tabCount);
+
+                addTab(i, pageTitles[i % tabCount], tabView);
+                updateTabStyle(tabView, findTabTitle(tabView), i);
+            }
+
+            updateTabTitles();
+            if (precomputed != null) {
+                applyTabWidths(precomputed.widths);
+            }
+        }
+        scrollToCurrentItemOnLayout(false);
+        if (metricsListener != null) {
+            metricsListener.onTabsRebuilt(tabCount, System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Inserts the tabs of pages added to the adapter without rebuilding the
+     * other tabs, the scroll position and the selection are kept.
+     *
+     * Call it right after changing the adapter data and before
+     * {@link android.support.v4.view.PagerAdapter#notifyDataSetChanged()},
+     * which won't rebuild the tabs anymore.
+     */
+    public void notifyTabsInserted(int positionStart, int itemCount) {
+        TabRanges.checkRange(positionStart, 0, tabCount);
+        if (!startTabsUpdate(tabCount + itemCount)) {
+            return;
+        }
+
+        final int newTabCount = tabCount + itemCount;
+        final CharSequence[] titles = new CharSequence[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            titles[i] = pager.getAdapter().getPageTitle(positionStart + i);
+        }
+        pageTitles = TabRanges.insert(pageTitles, positionStart, itemCount);
+        System.arraycopy(titles, 0, pageTitles, positionStart, itemCount);
+        if (recyclingTabsContainer != null) {
+            if (isDrawingTextTabs()) {
+                textTabsRenderer.insertTitles(positionStart, titles);
+            }
+            recyclingTabsContainer.insertTabs(positionStart, itemCount);
+        } else {
+            // Backwards so that the indexes of the former copies stay valid
+            for (int copy = tabCopies - 1; copy >= 0; copy--) {
+                for (int i = 0; i < itemCount; i++) {
+                    final int position = positionStart + i;
+                    final View tabView = createTabView(position);
+                    addTab(copy * tabCount + position, titles[i], tabView);
+                    final TextView tabTitle = findTabTitle(tabView);
+                    updateTabStyle(tabView, tabTitle, copy * newTabCount + position);
+                    notSelected(tabTitle);
+                }
+            }
+        }
+        finishTabsUpdate(newTabCount);
+    }
+
+    /**
+     * Removes the tabs of pages removed from the adapter without rebuilding
+     * the other tabs, see {@link #notifyTabsInserted(int, int)}.
+     */
+    public void notifyTabsRemoved(int positionStart, int itemCount) {
+        TabRanges.checkRange(positionStart, itemCount, tabCount);
+        if (!startTabsUpdate(tabCount - itemCount)) {
+            return;
+        }
+
+        pageTitles = TabRanges.remove(pageTitles, positionStart, itemCount);
+        if (recyclingTabsContainer != null) {
+            if (isDrawingTextTabs()) {
+                textTabsRenderer.removeTitles(positionStart, itemCount);
+            }
+            recyclingTabsContainer.removeTabs(positionStart, itemCount);
+        } else {
+            for (int copy = tabCopies - 1; copy >= 0; copy--) {
+                tabsContainer.removeViews(copy * tabCount + positionStart, itemCount);
+            }
+        }
+        finishTabsUpdate(tabCount - itemCount);
+    }
+
+    /**
+     * Moves itemCount tabs from fromPosition so that they start at toPosition,
+     * see {@link #notifyTabsInserted(int, int)}.
+     */
+    public void notifyTabsMoved(int fromPosition, int toPosition, int itemCount) {
+        TabRanges.checkRange(fromPosition, itemCount, tabCount);
+        TabRanges.checkRange(toPosition, itemCount, tabCount);
+        if (fromPosition == toPosition || !startTabsUpdate(tabCount)) {
+            return;
+        }
+
+        TabRanges.move(pageTitles, fromPosition, toPosition, itemCount);
+        if (recyclingTabsContainer != null) {
+            if (isDrawingTextTabs()) {
+                textTabsRenderer.moveTitles(fromPosition, toPosition, itemCount);
+            }
+            recyclingTabsContainer.moveTabs(fromPosition, toPosition, itemCount);
+        } else {
+            final View[] moved = new View[itemCount];
+            for (int copy = tabCopies - 1; copy >= 0; copy--) {
+                final int offset = copy * tabCount;
+                for (int i = 0; i < itemCount; i++) {
+                    moved[i] = tabsContainer.getChildAt(offset + fromPosition + i);
+                }
+                tabsContainer.removeViews(offset + fromPosition, itemCount);
+                for (int i = 0; i < itemCount; i++) {
+                    tabsContainer.addView(moved[i], offset + toPosition + i);
+                }
+            }
+        }
+        finishTabsUpdate(tabCount);
+    }
+
+    /**
+     * Fetches the title of the page at position again and updates only the
+     * tabs showing it, e.g. after a count in the title changed.
+     */
+    public void notifyTabTitleChanged(int position) {
+        if (pager == null) {
+            throw new IllegalStateException("ViewPager is not set.");
+        }
+        TabRanges.checkRange(position, 1, tabCount);
+        // The scheduled rebuild fetches all titles anyway
+        if (tabsRebuildPending) {
+            return;
+        }
+
+        final CharSequence title = pager.getAdapter().getPageTitle(position);
+        pageTitles[position] = title;
+        invalidateTabTile();
+        if (isDrawingTextTabs()) {
+            textTabsRenderer.setTitle(position, title);
+            recyclingTabsContainer.invalidateTabWidth(position);
+            invalidate();
+            return;
+        }
+
+        if (recyclingTabsContainer != null) {
+            recyclingTabsContainer.rebindTab(position);
+            recyclingTabsContainer.invalidateTabWidth(position);
+            return;
+        }
+
+        // The tab views lay themselves out again if the width changes
+        for (int copy = 0; copy < tabCopies; copy++) {
+            final int realPosition = copy * tabCount + position;
+            releaseTabWidth(tabsContainer.getChildAt(realPosition));
+            final TextView tabTitle = tabTitles[realPosition];
+            if (tabTitle != null && title != null) {
+                tabTitle.setText(title);
+            }
+        }
+    }
+
+    /**
+     * @return false if the tabs are rebuilt instead, e.g. when the adapter
+     * already notified its change or the count doesn't match.
+     */
+    private boolean startTabsUpdate(int newTabCount) {
+        if (pager == null) {
+            return false;
+        }
+        // The scheduled rebuild takes this change as well
+        if (tabsRebuildPending) {
+            return false;
+        }
+        if (pager.getAdapter().getCount() != newTabCount) {
+            if (pager.getAdapter().getCount() != tabCount) {
+                notifyDataSetChanged();
+            }
+            return false;
+        }
+
+        if (tabCount > 0) {
+            notSelectedItem(pager.getCurrentItem());
+            setTabsSelected(selectedPosition, false);
+        }
+        selectedPosition = -1;
+        return true;
+    }
+
+    private void finishTabsUpdate(int newTabCount) {
+        invalidateTabTile();
+        tabEdgesValid = false;
+        tabCount = newTabCount;
+        realTabCount = tabCount * tabCopies;
+        if (recyclingTabsContainer == null) {
+            updateTabTitles();
+        }
+        adapterObserver.skipNextChange();
+        scrollToCurrentItemOnLayout(true);
+        if (recyclingTabsContainer == null) {
+            // Inserted or removed tabs change the width the copies have to cover
+            updateTabCopies();
+        }
+    }
+
+    /**
+     * Rebuilds the tabs if the copies needed to cover the viewport changed,
+     * e.g. after a rotation or a range update. Recycled tabs resolve their
+     * copies on measure instead.
+     */
+    private void updateTabCopies() {
+        if (pager == null || recyclingTabsContainer != null || tabCount == 0
+                || tabsRebuildPending) {
+            return;
+        }
+        final int widthSpec = MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+        int tabsWidth = 0;
+        for (int i = 0; i < tabCount; i++) {
+            final View tabView = tabsContainer.getChildAt(i);
+            tabView.measure(widthSpec, widthSpec);
+            tabsWidth += tabView.getMeasuredWidth();
+        }
+        if (resolveTabCopies(tabsWidth) != tabCopies) {
+            notifyDataSetChanged();
+        } else {
+            // The tabs were measured for their natural width only
+            tabsContainer.requestLayout();
+        }
+    }
+
+    // Tabs can't be rebuilt while laid out
+    private final Runnable updateTabCopiesRunnable = new Runnable() {
+
+        @Override
+        public void run() {
+            updateTabCopies();
+        }
+    };
+
+    private void scrollToCurrentItemOnLayout(boolean restyle) {
+        restyleOnLayout |= restyle;
+        if (scrollToCurrentItemPending) {
+            return;
+        }
+        scrollToCurrentItemPending = true;
+        getViewTreeObserver().addOnGlobalLayoutListener(scrollToCurrentItemLayoutListener);
+    }
+
+    private final OnGlobalLayoutListener scrollToCurrentItemLayoutListener = new OnGlobalLayoutListener() {
+
+        @SuppressWarnings("deprecation")
+        @SuppressLint("NewApi")
+        @Override
+        public void onGlobalLayout() {
+
+            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+                getViewTreeObserver().removeGlobalOnLayoutListener(this);
+            } else {
+                getViewTreeObserver().removeOnGlobalLayoutListener(this);
+            }
+            scrollToCurrentItemPending = false;
+            final boolean restyle = restyleOnLayout;
+            restyleOnLayout = false;
+
+            currentPosition = pager.getCurrentItem();
+            currentPositionOffset = 0f;
+            scrollToChild(currentPosition, 0);
+            updateSelection(currentPosition);
+            if (restyle && tabCount > 0) {
+                selectedItem(currentPosition);
+            }
+        }
+    };
+
+    /**
+     * Rebuilds the tabs now if adapter changes are waiting for the next frame,
+     * e.g. before reading tab views right after notifying the adapter.
+     *
+     * @return true if the tabs were rebuilt
+     */
+    public boolean flushPendingDataSetChanges() {
+        if (!tabsRebuildPending) {
+            return false;
+        }
+        notifyDataSetChanged();
+        return true;
+    }
+
+    private void scheduleTabsRebuild() {
+        if (tabsRebuildPending) {
+            return;
+        }
+        tabsRebuildPending = true;
+        ViewCompat.postOnAnimation(this, tabsRebuildRunnable);
+    }
+
+    private void cancelTabsRebuild() {
+        if (!tabsRebuildPending) {
+            return;
+        }
+        tabsRebuildPending = false;
+        removeCallbacks(tabsRebuildRunnable);
+    }
+
+    /**
+     * Measures the titles of the adapter pages on a background thread with
+     * the current text size, typeface, all caps setting and tab padding, see
+     * {@link #precomputeTabs(Executor)}.
+     */
+    public void precomputeTabs() {
+        precomputeTabs(AsyncTask.THREAD_POOL_EXECUTOR);
+    }
+
+    /**
+     * Measures the titles of the adapter pages on the executor. The result is
+     * applied on the main thread in one layout pass, or used by the next
+     * rebuild of the tabs instead of measuring them one by one. Linear tabs
+     * get fixed widths, so their titles are still laid out but no longer
+     * measured for their width, unless the tabs are expanded. Tabs are
+     * measured synchronously whenever nothing matching the current pages and
+     * text style was precomputed.
+     *
+     * Adapters implementing {@link CustomTabProvider} are not precomputed.
+     */
+    public void precomputeTabs(Executor executor) {
+        if (pager == null) {
+            throw new IllegalStateException("ViewPager is not set.");
+        }
+        if (pager.getAdapter() instanceof CustomTabProvider) {
+            return;
+        }
+
+        // Titles are taken on the main thread, adapters aren't thread-safe
+        final CharSequence[] titles = new CharSequence[pager.getAdapter().getCount()];
+        for (int i = 0; i < titles.length; i++) {
+            titles[i] = pager.getAdapter().getPageTitle(i);
+        }
+        final int textSize = tabTextSize;
+        final Typeface typeface = tabTypeface;
+        final int style = tabTypefaceStyle;
+        final int selectedStyle = tabTypefaceSelectedStyle;
+        final boolean allCaps = textAllCaps;
+        final Locale textLocale = locale;
+        final int padding = tabPadding;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final PrecomputedTabs precomputed = PrecomputedTabs.measure(titles, textSize,
+                        typeface, style, selectedStyle, allCaps, textLocale, padding);
+                post(new Runnable() {
+                    @Override
+                    public void run() {
+                        applyPrecomputedTabs(precomputed);
+                    }
+                });
+            }
+        });
+    }
+
+    private void applyPrecomputedTabs(PrecomputedTabs precomputed) {
+        precomputedTabs = precomputed;
+        if (tabCount != precomputed.getCount()) {
+            // Waits for the next rebuild
+            return;
+        }
+
+        final PrecomputedTabs matching = takePrecomputedTabs();
+        if (matching == null) {
+            return;
+        }
+        if (recyclingTabsContainer == null) {
+            applyTabWidths(matching.widths);
+            return;
+        }
+        if (isDrawingTextTabs()) {
+            textTabsRenderer.applyPrecomputed(matching);
+        }
+        recyclingTabsContainer.setNaturalWidths(matching.widths);
+    }
+
+    /**
+     * @return the precomputed tabs if they still match the page titles and the
+     * text style, null otherwise
+     */
+    private PrecomputedTabs takePrecomputedTabs() {
+        final PrecomputedTabs precomputed = precomputedTabs;
+        precomputedTabs = null;
+        if (precomputed == null || pager == null
+                || pager.getAdapter() instanceof CustomTabProvider
+                || !precomputed.matches(pageTitles, tabTextSize, tabTypeface,
+                tabTypefaceStyle, tabTypefaceSelectedStyle, textAllCaps, locale, tabPadding)) {
+            return null;
+        }
+        return precomputed;
+    }
+
+    /**
+     * Fixes the width of every linear tab to its precomputed width, so that
+     * laying the tabs out doesn't measure their titles. Expanded tabs share the
+     * width instead.
+     */
+    private void applyTabWidths(int[] widths) {
+        if (shouldExpand) {
+            return;
+        }
+        for (int i = 0; i < realTabCount; i++) {
+            tabsContainer.getChildAt(i).setLayoutParams(
+                    new LinearLayout.LayoutParams(widths[i % tabCount], LayoutParams.MATCH_PARENT));
+        }
+    }
+
+    /**
+     * Lets the linear tab size itself again, e.g. after its title or text style changed.
+     */
+    private void releaseTabWidth(View tabView) {
+        tabView.setLayoutParams(shouldExpand ? expandedTabLayoutParams : defaultTabLayoutParams);
+    }
+
+    private View createTabView(int position) {
+        if (metricsListener != null) {
+            metricsListener.onTabViewCreated(position);
+        }
+        if (pager.getAdapter() instanceof CustomTabProvider) {
+            return ((CustomTabProvider) pager.getAdapter()).getCustomTabView(this, position);
+        }
+        return LayoutInflater.from(getContext()).inflate(R.layout.tab, this, false);
+    }
+
+    private void addTab(int position, CharSequence title, View tabView) {
+        TextView tabTitle = findTabTitle(tabView);
+        if (tabTitle != null) {
+            if (title != null) {
+                tabTitle.setText(title);
+            }
+            float alpha = pager.getCurrentItem() == position ? tabTextSelectedAlpha : tabTextAlpha;
+            tabTitle.setAlpha(alpha);
+        }
+
+        tabView.setFocusable(true);
+        tabView.setOnClickListener(tabClickListener);
+
+        tabsContainer.addView(tabView, position,
+                shouldExpand ? expandedTabLayoutParams : defaultTabLayoutParams);
+    }
+
+    private void onTabClick(int position) {
+        if (pager.getCurrentItem() != position) {
+            notSelectedItem(pager.getCurrentItem());
+            pager.setCurrentItem(position % tabCount);
+        } else if (tabReselectedListener != null) {
+            tabReselectedListener.onTabReselected(position);
+        }
+    }
+
+    // Looks the position up on click, so that moving tabs around needs no new listeners
+    private final OnClickListener tabClickListener = new OnClickListener() {
+        @Override
+        public void onClick(View v) {
+            onTabClick(recyclingTabsContainer != null
+                    ? recyclingTabsContainer.getTabPosition(v)
+                    : getTabPositionAt(v.getLeft()));
+        }
+    };
+
+    private final RecyclingTabsLayout.TabBinder tabBinder = new RecyclingTabsLayout.TabBinder() {
+
+        @Override
+        public int getTabType(int position) {
+            // Custom tabs can not be bound to another position
+            return pager.getAdapter() instanceof CustomTabProvider
+                    ? position : RecyclingTabsLayout.TYPE_ANY;
+        }
+
+        @Override
+        public int getTabCopies(int tabsWidth) {
+            tabCopies = resolveTabCopies(tabsWidth);
+            realTabCount = tabCount * tabCopies;
+            return tabCopies;
+        }
+
+        @Override
+        public View createTab(ViewGroup parent, int position) {
+            View tabView = createTabView(position);
+            tabView.setFocusable(true);
+            tabView.setOnClickListener(tabClickListener);
+            return tabView;
+        }
+
+        @Override
+        public void bindTab(View tab, int position, int realPosition) {
+            TextView tabTitle = findTabTitle(tab);
+            CharSequence title = pageTitles[position];
+            // A tab bound to the same title again keeps its text layout
+            if (tabTitle != null && title != null && tabTitle.getText() != title) {
+                tabTitle.setText(title);
             }
 
-            CharSequence title = pager.getAdapter().getPageTitle(i % tabCount);
+            updateTabStyle(tab, tabTitle, realPosition);
+            final boolean isSelected = pager.getCurrentItem() == position;
+            tab.setSelected(isSelected);
+            if (isSelected) {
+                selected(tabTitle);
+            } else {
+                notSelected(tabTitle);
+            }
+        }
+    };
 
-            addTab(i, title, tabView);
+    private void updateTabStyles() {
+        invalidateTabTile();
+        if (isDrawingTextTabs()) {
+            updateTextTabsStyle();
+            recyclingTabsContainer.invalidateTabWidths();
+            invalidate();
+            return;
         }
 
-        updateTabStyles();
-        getViewTreeObserver().addOnGlobalLayoutListener(new OnGlobalLayoutListener() {
+        if (recyclingTabsContainer != null) {
+            recyclingTabsContainer.rebindTabs();
+            recyclingTabsContainer.invalidateTabWidths();
+            return;
+        }
 
-            @SuppressWarnings("deprecation")
-            @SuppressLint("NewApi")
-            @Override
-            public void onGlobalLayout() {
+        for (int i = 0; i < realTabCount; i++) {
+            final View tabView = tabsContainer.getChildAt(i);
+            releaseTabWidth(tabView);
+            updateTabStyle(tabView, tabTitles[i], i);
+        }
 
-                if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
-                    getViewTreeObserver().removeGlobalOnLayoutListener(this);
-                } else {
-                    getViewTreeObserver().removeOnGlobalLayoutListener(this);
-                }
+    }
 
-                currentPosition = pager.getCurrentItem();
-                currentPositionOffset = 0f;
-                scrollToChild(currentPosition, 0);
-                updateSelection(currentPosition);
-            }
-        });
+    /**
+     * Indexes the title views of all tabs after the tabs were added, removed or moved.
+     */
+    private void updateTabTitles() {
+        if (tabTitles.length != realTabCount) {
+            tabTitles = new TextView[realTabCount];
+        }
+        for (int i = 0; i < realTabCount; i++) {
+            tabTitles[i] = findTabTitle(tabsContainer.getChildAt(i));
+        }
     }
 
-    private void addTab(final int position, CharSequence title, View tabView) {
-        TextView tabTitle = (TextView) tabView.findViewById(R.id.tab_title);
-        if (tabTitle != null) {
-            if (title != null) {
-                tabTitle.setText(title);
-            }
-            float alpha = pager.getCurrentItem() == position ? tabTextSelectedAlpha : tabTextAlpha;
-            tabTitle.setAlpha(alpha);
+    /**
+     * @return the title view of the tab, searched once per tab view and then held by its tag
+     */
+    private static TextView findTabTitle(View tab) {
+        Object holder = tab.getTag(R.id.tab_title);
+        if (holder == null) {
+            holder = tab.findViewById(R.id.tab_title);
+            tab.setTag(R.id.tab_title, holder != null ? holder : NO_TAB_TITLE);
         }
+        return holder instanceof TextView ? (TextView) holder : null;
+    }
 
-        tabView.setFocusable(true);
-        tabView.setOnClickListener(new OnClickListener() {
-            @Override
-            public void onClick(View v) {
-                if (pager.getCurrentItem() != position) {
-                    notSelectedItem(pager.getCurrentItem());
-                    pager.setCurrentItem(position % tabCount);
-                } else if (tabReselectedListener != null) {
-                    tabReselectedListener.onTabReselected(position);
-                }
-            }
-        });
+    /**
+     * @return the title view of the tab at the real position, or null if there is none
+     */
+    private TextView getTabTitle(int realPosition) {
+        if (recyclingTabsContainer != null) {
+            final View tab = recyclingTabsContainer.getTabAt(realPosition);
+            return tab != null ? findTabTitle(tab) : null;
+        }
+        return tabTitles[realPosition];
+    }
 
-        tabsContainer.addView(tabView, position,
-                shouldExpand ? expandedTabLayoutParams : defaultTabLayoutParams);
+    private void updateTextTabsStyle() {
+        textTabsRenderer.setStyle(tabTextSize, tabTypeface, tabTypefaceStyle,
+                tabTypefaceSelectedStyle, textAllCaps, locale, tabTextColor, tabTextAlpha,
+                tabTextSelectedAlpha, tabPadding);
     }
 
-    private void updateTabStyles() {
-        for (int i = 0; i < realTabCount; i++) {
-            View v = tabsContainer.getChildAt(i);
-            if (!(pager.getAdapter() instanceof CustomTabProvider)) {
-                v.setBackgroundResource(tabBackgroundResId);
+    private void updateTabStyle(View v, TextView tabTitle, int realPosition) {
+        if (!(pager.getAdapter() instanceof CustomTabProvider)) {
+            v.setBackgroundResource(tabBackgroundResId);
+        }
+        v.setPadding(tabPadding, v.getPaddingTop(), tabPadding, v.getPaddingBottom());
+
+        if (tabTitle != null) {
+            tabTitle.setTextSize(TypedValue.COMPLEX_UNIT_PX, tabTextSize);
+            tabTitle.setTypeface(tabTypeface,
+                    pager.getCurrentItem() == realPosition ? tabTypefaceSelectedStyle : tabTypefaceStyle);
+            if (tabTextColor != null) {
+                tabTitle.setTextColor(tabTextColor);
             }
-            v.setPadding(tabPadding, v.getPaddingTop(), tabPadding, v.getPaddingBottom());
-
-            TextView tabTitle = (TextView) v.findViewById(R.id.tab_title);
-            if (tabTitle != null) {
-                tabTitle.setTextSize(TypedValue.COMPLEX_UNIT_PX, tabTextSize);
-                tabTitle.setTypeface(tabTypeface,
-                        pager.getCurrentItem() == i ? tabTypefaceSelectedStyle : tabTypefaceStyle);
-                if (tabTextColor != null) {
-                    tabTitle.setTextColor(tabTextColor);
-                }
-                // setAllCaps() is only available from API 14, so the upper case is made manually if we are on a
-                // pre-ICS-build
-                if (textAllCaps) {
-                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+            // setAllCaps() is only available from API 14, so the upper case is made manually if we are on a
+            // pre-ICS-build
+            if (textAllCaps) {
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+                    // setAllCaps() creates a transformation and lays the text out again
+                    if (tabTitle.getTag(R.id.tab_all_caps) == null) {
                         tabTitle.setAllCaps(true);
-                    } else {
-                        tabTitle.setText(tabTitle.getText().toString().toUpperCase(locale));
+                        tabTitle.setTag(R.id.tab_all_caps, Boolean.TRUE);
                     }
+                } else {
+                    tabTitle.setText(tabTitle.getText().toString().toUpperCase(locale));
                 }
             }
         }
-
     }
 
     private void scrollToChild(int position, int offset) {
-        if (tabCount == 0) {
+        // Pages added since the last rebuild have no tabs yet
+        if (tabCount == 0 || position >= tabCount) {
             return;
         }
 
         final int realPosition = position + tabCount;
-        int newScrollX = tabsContainer.getChildAt(realPosition).getLeft() + offset;
+        int newScrollX = getTabLeft(realPosition) + offset;
 
         //Half screen offset.
         //- Either tabs start at the middle of the view scrolling straight away
         //- Or tabs start at the begging (no padding) scrolling when indicator gets
         //  to the middle of the view width
         newScrollX -= scrollOffset;
-        Pair<Float, Float> lines = getIndicatorCoordinates();
-        newScrollX += ((lines.second - lines.first) / 2);
+        updateIndicatorCoordinates();
+        newScrollX += ((indicatorRight - indicatorLeft) / 2);
 
         if (newScrollX != lastScrollX) {
             lastScrollX = newScrollX;
@@ -498,38 +1303,71 @@ public class SpinningTabStrip extends HorizontalScrollView {
         }
     }
 
-    private Pair<Float, Float> getIndicatorCoordinates() {
+    /**
+     * Invalidates the indicator band between left and right in every visible tab copy.
+     */
+    private void invalidateIndicator(float left, float right) {
+        final int tabsWidth = getTabsWidth();
+        if (tabsWidth <= 0) {
+            invalidate();
+            return;
+        }
+
+        final int height = getHeight();
+        final int lastCopy = getLastVisibleCopy(left, tabsWidth);
+        for (int i = getFirstVisibleCopy(right, tabsWidth); i <= lastCopy; i++) {
+            final int padding = tabsWidth * i;
+            invalidate((int) Math.floor(left) + padding, height - indicatorHeight,
+                    (int) Math.ceil(right) + padding, height);
+        }
+    }
+
+    /**
+     * @return the first tab copy in which the range ending at right is visible
+     */
+    private int getFirstVisibleCopy(float right, int tabsWidth) {
+        return Math.max(0, (int) Math.floor((getScrollX() - right) / tabsWidth) + 1);
+    }
+
+    /**
+     * @return the last tab copy in which the range starting at left is visible
+     */
+    private int getLastVisibleCopy(float left, int tabsWidth) {
+        return Math.min(tabCopies - 1,
+                (int) Math.ceil((getScrollX() + getWidth() - left) / tabsWidth) - 1);
+    }
+
+    private void updateIndicatorCoordinates() {
         // default: line below current tab
 
-        View currentTab = tabsContainer.getChildAt(getRealCurrentPosition());
-        float lineLeft = currentTab.getLeft();
-        float lineRight = currentTab.getRight();
+        float lineLeft = getTabLeft(getRealCurrentPosition());
+        float lineRight = getTabRight(getRealCurrentPosition());
 
         // if there is an offset, start interpolating left and right coordinates between current and next tab
         if (currentPositionOffset > 0f && getRealCurrentPosition() < realTabCount - 1) {
 
-            View nextTab = tabsContainer.getChildAt(getRealCurrentPosition() + 1);
-            final float nextTabLeft = nextTab.getLeft();
-            final float nextTabRight = nextTab.getRight();
+            final float nextTabLeft = getTabLeft(getRealCurrentPosition() + 1);
+            final float nextTabRight = getTabRight(getRealCurrentPosition() + 1);
 
-            lineLeft = (currentPositionOffset * nextTabLeft
-                    + (1f - currentPositionOffset) * lineLeft);
-            lineRight = (currentPositionOffset * nextTabRight
-                    + (1f - currentPositionOffset) * lineRight);
+            lineLeft = SpinningPositions.interpolate(lineLeft, nextTabLeft, currentPositionOffset);
+            lineRight = SpinningPositions.interpolate(lineRight, nextTabRight, currentPositionOffset);
         }
-        return new Pair<Float, Float>(lineLeft, lineRight);
+        indicatorLeft = lineLeft;
+        indicatorRight = lineRight;
     }
 
     @Override
     protected void onLayout(boolean changed, int l, int t, int r, int b) {
-        if (tabsContainer.getChildCount() > 0) {
-            tabsContainer
-                    .getChildAt(0 + tabCount)
-                    .getViewTreeObserver()
-                    .addOnGlobalLayoutListener(firstTabGlobalLayoutListener);
-
+        if (tabCount > 0 && !firstTabLayoutPending) {
+            firstTabLayoutPending = true;
+            getViewTreeObserver().addOnGlobalLayoutListener(firstTabGlobalLayoutListener);
         }
         super.onLayout(changed, l, t, r, b);
+        dividerLinesValid = false;
+        tabEdgesValid = false;
+        if (changed) {
+            invalidateTabTile();
+        }
     }
 
     private OnGlobalLayoutListener firstTabGlobalLayoutListener = new OnGlobalLayoutListener() {
@@ -541,6 +1379,7 @@ public class SpinningTabStrip extends HorizontalScrollView {
             } else {
                 getViewTreeObserver().removeOnGlobalLayoutListener(this);
             }
+            firstTabLayoutPending = false;
 
             scrollOffset = getWidth() / 2;
             scrollToChild(currentPosition, 0);
@@ -548,6 +1387,17 @@ public class SpinningTabStrip extends HorizontalScrollView {
         }
     };
 
+    @Override
+    public void draw(Canvas canvas) {
+        if (metricsListener == null) {
+            super.draw(canvas);
+            return;
+        }
+        final long startNanos = System.nanoTime();
+        super.draw(canvas);
+        metricsListener.onFrameDrawn(System.nanoTime() - startNanos);
+    }
+
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
@@ -556,36 +1406,208 @@ public class SpinningTabStrip extends HorizontalScrollView {
         }
 
         final int height = getHeight();
+        if (isDrawingTextTabs() && !isDrawingTabTile()) {
+            drawTextTabs(canvas);
+        }
         // draw indicator line, and draw indicator line for next dummy tab
         rectPaint.setColor(indicatorColor);
-        Pair<Float, Float> lines = getIndicatorCoordinates();
-        final float left = lines.first;
-        final float right = lines.second;
-        final float tabsWidth = getTabsWidth();
-        for (int i = 0; i < DUMMY_TAB_RATE; ++i) {
-            final float padding = tabsWidth * i;
-            canvas.drawRect(left + padding, height - indicatorHeight, right + padding, height,
-                    rectPaint);
+        updateIndicatorCoordinates();
+        final float left = indicatorLeft;
+        final float right = indicatorRight;
+        final int tabsWidth = getTabsWidth();
+        final int visibleLeft = getScrollX();
+        final int visibleRight = visibleLeft + getWidth();
+        if (tabsWidth > 0) {
+            // Only the copies crossing the visible range, usually just one
+            final int lastCopy = getLastVisibleCopy(left, tabsWidth);
+            for (int i = getFirstVisibleCopy(right, tabsWidth); i <= lastCopy; ++i) {
+                final float padding = tabsWidth * i;
+                canvas.drawRect(left + padding, height - indicatorHeight, right + padding, height,
+                        rectPaint);
+            }
         }
         // draw underline
-        rectPaint.setColor(underlineColor);
-        canvas.drawRect(0, height - underlineHeight, tabsContainer.getWidth(), height, rectPaint);
+        if (underlineHeight > 0) {
+            rectPaint.setColor(underlineColor);
+            canvas.drawRect(Math.max(0, visibleLeft), height - underlineHeight,
+                    Math.min(tabsContainer.getWidth(), visibleRight), height, rectPaint);
+        }
         // draw divider
         if (dividerWidth != 0) {
-            dividerPaint.setStrokeWidth(dividerWidth);
-            dividerPaint.setColor(dividerColor);
-            for (int i = 0; i < realTabCount - 1; i++) {
-                View tab = tabsContainer.getChildAt(i);
-                canvas.drawLine(tab.getRight(), dividerPadding, tab.getRight(),
-                        height - dividerPadding, dividerPaint);
+            drawDividers(canvas, height);
+        }
+    }
+
+    /**
+     * Draws the dividers crossing the visible part of the strip in one batch.
+     */
+    private void drawDividers(Canvas canvas, int height) {
+        if (!dividerLinesValid) {
+            updateDividerLines(height);
+        }
+        final int dividerCount = dividerLines.length / 4;
+        if (dividerCount == 0) {
+            return;
+        }
+
+        final float halfWidth = dividerWidth / 2f;
+        final int scrollX = getScrollX();
+        final int first = findDividerAt(scrollX - halfWidth, dividerCount);
+        final int end = findDividerAt(scrollX + getWidth() + halfWidth, dividerCount);
+        if (first >= end) {
+            return;
+        }
+
+        dividerPaint.setStrokeWidth(dividerWidth);
+        dividerPaint.setColor(dividerColor);
+        canvas.drawLines(dividerLines, first * 4, (end - first) * 4, dividerPaint);
+    }
+
+    /**
+     * @return the first divider whose x is not less than x
+     */
+    private int findDividerAt(float x, int dividerCount) {
+        int low = 0;
+        int high = dividerCount;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (dividerLines[mid * 4] < x) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void updateDividerLines(int height) {
+        final int dividerCount = Math.max(0, realTabCount - 1);
+        if (dividerLines.length != dividerCount * 4) {
+            dividerLines = new float[dividerCount * 4];
+        }
+        for (int i = 0; i < dividerCount; i++) {
+            final int tabRight = getTabRight(i);
+            dividerLines[i * 4] = tabRight;
+            dividerLines[i * 4 + 1] = dividerPadding;
+            dividerLines[i * 4 + 2] = tabRight;
+            dividerLines[i * 4 + 3] = height - dividerPadding;
+        }
+        dividerLinesValid = true;
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        if (!isDrawingTabTile()) {
+            super.dispatchDraw(canvas);
+            return;
+        }
+
+        final int tabsWidth = getTabsWidth();
+        final int lastCopy = getLastVisibleCopy(0, tabsWidth);
+        for (int i = getFirstVisibleCopy(tabsWidth, tabsWidth); i <= lastCopy; i++) {
+            canvas.drawBitmap(tabTile, tabsContainer.getLeft() + tabsWidth * i,
+                    tabsContainer.getTop(), null);
+        }
+        // Back to the live tabs once the fling settles
+        ViewCompat.postInvalidateOnAnimation(this);
+    }
+
+    /**
+     * @return true if the tabs are drawn from the cached tile on this frame
+     */
+    private boolean isDrawingTabTile() {
+        if (!cacheTabsOnFling || !isFlinging()) {
+            return false;
+        }
+        if (!tabTileValid) {
+            updateTabTile();
+        }
+        return tabTileValid;
+    }
+
+    private boolean isFlinging() {
+        return !flinger.isFinished();
+    }
+
+    private void updateTabTile() {
+        final int tabsWidth = getTabsWidth();
+        final int tabsHeight = tabsContainer.getHeight();
+        // Tab views off the viewport don't exist while recycling them
+        final boolean canRender = tabCount > 0 && tabsWidth > 0 && tabsHeight > 0
+                && tabsWidth <= MAX_TAB_TILE_WIDTH
+                && (recyclingTabsContainer == null || isDrawingTextTabs());
+        if (!canRender) {
+            releaseTabTile();
+            return;
+        }
+
+        if (tabTile == null || tabTile.getWidth() != tabsWidth
+                || tabTile.getHeight() != tabsHeight) {
+            releaseTabTile();
+            tabTile = Bitmap.createBitmap(tabsWidth, tabsHeight, Bitmap.Config.ARGB_8888);
+        } else {
+            tabTile.eraseColor(0);
+        }
+
+        // Renders the real tabs, every copy looks the same
+        final Canvas tileCanvas = new Canvas(tabTile);
+        final int tileLeft = getTabLeft(tabCount);
+        if (isDrawingTextTabs()) {
+            final int currentItem = pager.getCurrentItem();
+            for (int i = 0; i < tabCount; i++) {
+                final int realPosition = i + tabCount;
+                textTabsRenderer.draw(tileCanvas, i, getTabLeft(realPosition) - tileLeft,
+                        getTabWidth(realPosition), tabsHeight, i == currentItem);
+            }
+        } else {
+            for (int i = tabCount; i < tabCount * 2; i++) {
+                final View tab = tabsContainer.getChildAt(i);
+                final int saveCount = tileCanvas.save();
+                tileCanvas.translate(tab.getLeft() - tileLeft, tab.getTop());
+                tab.draw(tileCanvas);
+                tileCanvas.restoreToCount(saveCount);
             }
         }
+        tabTileValid = true;
+    }
+
+    private void invalidateTabTile() {
+        tabTileValid = false;
+    }
+
+    private void releaseTabTile() {
+        tabTileValid = false;
+        if (tabTile != null) {
+            tabTile.recycle();
+            tabTile = null;
+        }
+    }
+
+    private void drawTextTabs(Canvas canvas) {
+        final int scrollX = getScrollX();
+        final int first = recyclingTabsContainer.getTabPositionAt(scrollX);
+        final int last = recyclingTabsContainer.getTabPositionAt(scrollX + getWidth());
+        final int tabsHeight = tabsContainer.getHeight();
+        final int currentItem = pager.getCurrentItem();
+        for (int i = first; i <= last; i++) {
+            final int position = i % tabCount;
+            textTabsRenderer.draw(canvas, position, getTabLeft(i), getTabWidth(i), tabsHeight,
+                    position == currentItem);
+        }
     }
 
     @Override
     protected void onScrollChanged(final int l, final int t, final int oldl, final int oldt) {
         super.onScrollChanged(l, t, oldl, oldt);
 
+        if (recyclingTabsContainer != null) {
+            recyclingTabsContainer.setViewport(l, getWidth());
+        }
+
+        if (flingScrolling) {
+            return;
+        }
+
         if (isInfiniteStartPoint(l)) {
             onInfiniteScrollStart(l, t, oldl, oldt);
         }
@@ -595,65 +1617,79 @@ public class SpinningTabStrip extends HorizontalScrollView {
         }
     }
 
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        if (recyclingTabsContainer != null) {
+            recyclingTabsContainer.setViewport(getScrollX(), w);
+        } else if (w != oldw) {
+            removeCallbacks(updateTabCopiesRunnable);
+            post(updateTabCopiesRunnable);
+        }
+    }
+
     @Override
     public boolean dispatchTouchEvent(MotionEvent ev) {
         return super.dispatchTouchEvent(ev) | gestureDetector.onTouchEvent(ev);
     }
 
-    protected void onInfiniteScrollStart(int l, int t, int oldl, int oldt) {
-        flingVelocity.computeScrollOffset();
-
-        final boolean overScrolled = l <= 0;
-        final int tabsWidth = getTabsWidth();
-        // Use finalX to difference when scroll is over.
-        final int difference = (!overScrolled) ? l : Math.abs(flingVelocity.getFinalX());
-        final int moveTo = tabsContainer.getWidth() - (tabsWidth * 2 - difference % tabsWidth);
-
-        scrollTo(moveTo, t);
-
-        // First flinging
-        if (!flingVelocity.isFinished()) {
-            Log.d(TAG, String.format("Start start infinite"));
-            final int velocity = (int) flingVelocity.getCurrVelocity();
-            flingVelocity.forceFinished(true);
-            flinger.start(moveTo, -velocity);
+    /**
+     * Flings run on the flinger instead of the scroller of HorizontalScrollView,
+     * which stops at both ends of the strip.
+     */
+    @Override
+    public void fling(int velocityX) {
+        if (tabCount == 0 || getTabsWidth() == 0) {
+            super.fling(velocityX);
+            return;
         }
-
-        // Next flinging
-        if (overScrolled) {
-            Log.d(TAG, String.format("Start over scrolled"));
-            final int velocity = (int) flinger.getCurrVelocity();
-            flinger.forceFinished(true);
-            flinger.start(moveTo, -velocity);
+        flinger.start(getScrollX(), velocityX);
+        if (metricsListener != null) {
+            metricsListener.onFlingStarted(velocityX);
         }
     }
 
-    protected void onInfiniteScrollEnd(int l, int t, int oldl, int oldt) {
-        flingVelocity.computeScrollOffset();
+    /**
+     * @return the scroll x showing the same tabs as the logical scroll x, inside
+     * the real set of tabs
+     */
+    protected int toPhysicalScrollX(int logicalScrollX) {
+        return SpinningPositions.toPhysicalScrollX(logicalScrollX, getTabsWidth());
+    }
 
-        final boolean overScrolled = l >= tabsContainer.getWidth() - getWidth();
+    /**
+     * Wraps a drag reaching the start of the strip, flings never get here.
+     */
+    protected void onInfiniteScrollStart(int l, int t, int oldl, int oldt) {
         final int tabsWidth = getTabsWidth();
-        // Use finalX to difference when scroll is over.
-        final int difference = (!overScrolled) ? l : Math.abs(flingVelocity.getFinalX());
-        final int moveTo = tabsWidth + difference % tabsWidth;
-        Log.d(TAG, String.format("End l :%d, moveTo: %d", l, moveTo));
+        if (tabsWidth == 0) {
+            return;
+        }
+        final int moveTo = SpinningPositions.wrapStart(l, tabsContainer.getWidth(),
+                getWrapWidth(), tabsWidth);
 
         scrollTo(moveTo, t);
+        if (metricsListener != null && moveTo != l) {
+            metricsListener.onInfiniteWrap(l, moveTo);
+        }
+    }
 
-        // First flinging
-        if (!flingVelocity.isFinished()) {
-            Log.d(TAG, String.format("End start infinite"));
-            final int velocity = (int) flingVelocity.getCurrVelocity();
-            flingVelocity.forceFinished(true);
-            flinger.start(moveTo, velocity);
+    /**
+     * Wraps a drag reaching the end of the strip, flings never get here.
+     */
+    protected void onInfiniteScrollEnd(int l, int t, int oldl, int oldt) {
+        final int tabsWidth = getTabsWidth();
+        if (tabsWidth == 0) {
+            return;
+        }
+        final int moveTo = SpinningPositions.wrapEnd(l, tabsWidth);
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, String.format("End l :%d, moveTo: %d", l, moveTo));
         }
 
-        // Next flinging
-        if (overScrolled) {
-            Log.d(TAG, String.format("End over scrolled"));
-            final int velocity = (int) flinger.getCurrVelocity();
-            flinger.forceFinished(true);
-            flinger.start(moveTo, velocity);
+        scrollTo(moveTo, t);
+        if (metricsListener != null && moveTo != l) {
+            metricsListener.onInfiniteWrap(l, moveTo);
         }
     }
 
@@ -665,30 +1701,81 @@ public class SpinningTabStrip extends HorizontalScrollView {
         this.delegatePageListener = listener;
     }
 
+    /**
+     * Adds a listener of the pages of the view pager, besides the one set with
+     * {@link #setOnPageChangeListener(OnPageChangeListener)}.
+     */
+    public void addOnPageChangeListener(OnPageChangeListener listener) {
+        pageChangeListeners.add(listener);
+    }
+
+    public void removeOnPageChangeListener(OnPageChangeListener listener) {
+        pageChangeListeners.remove(listener);
+    }
+
+    public void setMetricsListener(MetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    public void setOnFlingFrameListener(OnFlingFrameListener flingFrameListener) {
+        this.flingFrameListener = flingFrameListener;
+    }
+
     private class PageListener implements OnPageChangeListener {
 
         @Override
         public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
+            // Pages changed in the same frame must not hit the former tabs
+            flushPendingDataSetChanges();
+            final float oldIndicatorLeft = indicatorLeft;
+            final float oldIndicatorRight = indicatorRight;
+            final int oldScrollX = getScrollX();
+
             currentPosition = position;
             currentPositionOffset = positionOffset;
-            int offset = tabCount > 0 ? (int) (positionOffset * tabsContainer
-                    .getChildAt(position + tabCount).getWidth()) : 0;
+            int offset = tabCount > 0 ? (int) (positionOffset * getTabWidth(position + tabCount)) : 0;
             scrollToChild(currentPosition, offset);
-            invalidate();
+            if (getScrollX() != oldScrollX) {
+                // Scrolling already redraws the whole strip
+                fullInvalidations++;
+            } else {
+                updateIndicatorCoordinates();
+                invalidateIndicator(Math.min(oldIndicatorLeft, indicatorLeft),
+                        Math.max(oldIndicatorRight, indicatorRight));
+                partialInvalidations++;
+            }
             if (delegatePageListener != null) {
                 delegatePageListener.onPageScrolled(position, positionOffset, positionOffsetPixels);
             }
+            pageChangeListeners.onPageScrolled(position, positionOffset, positionOffsetPixels);
         }
 
         @Override
         public void onPageScrollStateChanged(int state) {
+            flushPendingDataSetChanges();
+            // Swipes start dragging, tab clicks and setCurrentItem start settling
+            if (pageScrollState == SCROLL_STATE_IDLE && state != SCROLL_STATE_IDLE) {
+                fullInvalidations = 0;
+                partialInvalidations = 0;
+            }
             if (state == SCROLL_STATE_DRAGGING) {
                 Log.d(TAG, "scroll state dragging");
                 flinger.forceFinished(true);
             }
             if (state == SCROLL_STATE_IDLE) {
                 scrollToChild(pager.getCurrentItem(), 0);
+                if (pageScrollState != SCROLL_STATE_IDLE) {
+                    if (metricsListener != null) {
+                        metricsListener.onPageScrollInvalidations(fullInvalidations,
+                                partialInvalidations);
+                    }
+                    if (Log.isLoggable(TAG, Log.DEBUG)) {
+                        Log.d(TAG, "page scroll invalidations full: " + fullInvalidations
+                                + ", partial: " + partialInvalidations);
+                    }
+                }
             }
+            pageScrollState = state;
             //Half transparent for prev item
             notSelectedItem(pager.getCurrentItem() - 1);
             //Half transparent for next item
@@ -699,55 +1786,81 @@ public class SpinningTabStrip extends HorizontalScrollView {
             if (delegatePageListener != null) {
                 delegatePageListener.onPageScrollStateChanged(state);
             }
+            pageChangeListeners.onPageScrollStateChanged(state);
         }
 
         @Override
         public void onPageSelected(int position) {
+            flushPendingDataSetChanges();
             updateSelection(position);
             if (delegatePageListener != null) {
                 delegatePageListener.onPageSelected(position);
             }
-            Log.d(TAG, String.format("selected tab position: %d", position));
+            pageChangeListeners.onPageSelected(position);
+            if (Log.isLoggable(TAG, Log.DEBUG)) {
+                Log.d(TAG, String.format("selected tab position: %d", position));
+            }
         }
 
     }
 
     private void updateSelection(int position) {
-        for (int i = 0; i < realTabCount; ++i) {
-            View tv = tabsContainer.getChildAt(i);
-            tv.setSelected(i % tabCount == position);
+        invalidateTabTile();
+        if (position != selectedPosition) {
+            setTabsSelected(selectedPosition, false);
+        }
+        setTabsSelected(position, true);
+        selectedPosition = position;
+        if (isDrawingTextTabs()) {
+            invalidate();
+        }
+    }
+
+    private void setTabsSelected(int position, boolean selected) {
+        if (position < 0 || position >= tabCount) {
+            return;
+        }
+
+        for (int i = 0; i < tabCopies; i++) {
+            final int realPosition = i * tabCount + position;
+            // Tabs which aren't materialized are selected while binding
+            final View tab = recyclingTabsContainer != null
+                    ? recyclingTabsContainer.getTabAt(realPosition)
+                    : tabsContainer.getChildAt(realPosition);
+            if (tab != null) {
+                tab.setSelected(selected);
+            }
         }
     }
 
     private void notSelectedItem(int position) {
+        invalidateTabTile();
         position = (position < 0) ? tabCount - 1 : position;
 
-        for (int i = 0; i < DUMMY_TAB_RATE; i++) {
+        for (int i = 0; i < tabCopies; i++) {
             final int index = i * tabCount + position;
-            notSelected(tabsContainer.getChildAt(index % realTabCount));
+            notSelected(getTabTitle(index % realTabCount));
         }
     }
 
     private void selectedItem(int position) {
+        invalidateTabTile();
         position = (position < 0) ? tabCount - 1 : position;
 
-        for (int i = 0; i < DUMMY_TAB_RATE; i++) {
+        for (int i = 0; i < tabCopies; i++) {
             final int index = i * tabCount + position;
-            final View tab = tabsContainer.getChildAt(index % realTabCount);
-            selected(tab);
+            selected(getTabTitle(index % realTabCount));
         }
     }
 
-    private void notSelected(View tab) {
-        TextView title = (TextView) tab.findViewById(R.id.tab_title);
+    private void notSelected(TextView title) {
         if (title != null) {
             title.setTypeface(tabTypeface, tabTypefaceStyle);
             title.setAlpha(tabTextAlpha);
         }
     }
 
-    private void selected(View tab) {
-        TextView title = (TextView) tab.findViewById(R.id.tab_title);
+    private void selected(TextView title) {
         if (title != null) {
             title.setTypeface(tabTypeface, tabTypefaceSelectedStyle);
             title.setAlpha(tabTextSelectedAlpha);
@@ -759,9 +1872,21 @@ public class SpinningTabStrip extends HorizontalScrollView {
 
         private boolean attached = false;
 
+        private boolean skipNextChange = false;
+
         @Override
         public void onChanged() {
-            notifyDataSetChanged();
+            // Tabs are already updated by a range notification
+            if (skipNextChange && pager.getAdapter().getCount() == tabCount) {
+                skipNextChange = false;
+                return;
+            }
+            skipNextChange = false;
+            scheduleTabsRebuild();
+        }
+
+        public void skipNextChange() {
+            skipNextChange = true;
         }
 
         public void setAttached(boolean attached) {
@@ -781,12 +1906,20 @@ public class SpinningTabStrip extends HorizontalScrollView {
                 pager.getAdapter().registerDataSetObserver(adapterObserver);
                 adapterObserver.setAttached(true);
             }
+            // Callbacks are dropped while detached, rebuild the changes left over
+            if (tabsRebuildPending) {
+                ViewCompat.postOnAnimation(this, tabsRebuildRunnable);
+            }
         }
     }
 
     @Override
     protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
+        flinger.cancel();
+        removeCallbacks(tabsRebuildRunnable);
+        removeCallbacks(updateTabCopiesRunnable);
+        releaseTabTile();
         if (pager != null) {
             if (adapterObserver.isAttached()) {
                 pager.getAdapter().unregisterDataSetObserver(adapterObserver);
@@ -952,6 +2085,7 @@ public class SpinningTabStrip extends HorizontalScrollView {
 
     public void setDividerPadding(int dividerPaddingPx) {
         this.dividerPadding = dividerPaddingPx;
+        dividerLinesValid = false;
         invalidate();
     }
 
@@ -962,6 +2096,13 @@ public class SpinningTabStrip extends HorizontalScrollView {
 
     public void setShouldExpand(boolean shouldExpand) {
         this.shouldExpand = shouldExpand;
+        if (recyclingTabsContainer != null) {
+            recyclingTabsContainer.setShouldExpand(shouldExpand);
+        } else {
+            for (int i = 0; i < tabsContainer.getChildCount(); i++) {
+                releaseTabWidth(tabsContainer.getChildAt(i));
+            }
+        }
         if (pager != null) {
             requestLayout();
         }
@@ -1012,12 +2153,159 @@ public class SpinningTabStrip extends HorizontalScrollView {
         updateTabStyles();
     }
 
+    /**
+     * Only the tabs intersecting the viewport are materialized while recycling
+     * tabs, so memory and layout cost stay flat whatever the adapter size is.
+     */
+    public void setTabsRecycling(boolean recycleTabs) {
+        if (this.recycleTabs == recycleTabs) {
+            return;
+        }
+        this.recycleTabs = recycleTabs;
+        if (drawTextTabs) {
+            // Already without tab views
+            return;
+        }
+        createTabsContainer();
+        setMarginBottomTabContainer();
+        if (pager != null) {
+            notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * Sets how many dummy copies of the tabs are laid out beside the real
+     * ones, 0 to work it out from the viewport and the tabs width.
+     */
+    public void setSideCount(int sideCount) {
+        this.sideCount = sideCount;
+        if (pager != null) {
+            notifyDataSetChanged();
+        }
+    }
+
+    public int getSideCount() {
+        return sideCount;
+    }
+
+    /**
+     * Sets how many tabs are shown at once to work the number of tab copies
+     * out, 0 to use the viewport width instead.
+     */
+    public void setShowTabsCount(int showTabsCount) {
+        this.showTabsCount = showTabsCount;
+        if (pager != null) {
+            notifyDataSetChanged();
+        }
+    }
+
+    public int getShowTabsCount() {
+        return showTabsCount;
+    }
+
+    /**
+     * Renders one set of tabs into a bitmap and draws it in place of the tabs
+     * while the strip is flinging, the live tabs are drawn again once it
+     * settles. Recycled tab views can't be cached, text tabs drawn onto the
+     * canvas can.
+     */
+    public void setTabsCachingOnFling(boolean cacheTabsOnFling) {
+        this.cacheTabsOnFling = cacheTabsOnFling;
+        if (!cacheTabsOnFling) {
+            releaseTabTile();
+        }
+        invalidate();
+    }
+
+    public boolean isTabsCachingOnFling() {
+        return cacheTabsOnFling;
+    }
+
+    public boolean isTabsRecycling() {
+        return recycleTabs;
+    }
+
+    /**
+     * Draws the titles of plain text tabs onto the canvas of the strip instead
+     * of inflating tab views. Adapters implementing {@link CustomTabProvider}
+     * keep their tab views.
+     */
+    public void setDrawTextTabs(boolean drawTextTabs) {
+        if (this.drawTextTabs == drawTextTabs) {
+            return;
+        }
+        this.drawTextTabs = drawTextTabs;
+        createTabsContainer();
+        setMarginBottomTabContainer();
+        if (pager != null) {
+            notifyDataSetChanged();
+        }
+    }
+
+    public boolean isDrawTextTabs() {
+        return drawTextTabs;
+    }
+
+    private boolean isDrawingTextTabs() {
+        return drawTextTabs && pager != null
+                && !(pager.getAdapter() instanceof CustomTabProvider);
+    }
+
+    private int getTabLeft(int realPosition) {
+        if (recyclingTabsContainer != null) {
+            return recyclingTabsContainer.getTabLeft(realPosition);
+        }
+        return getTabEdges()[realPosition];
+    }
+
+    private int getTabWidth(int realPosition) {
+        if (recyclingTabsContainer != null) {
+            return recyclingTabsContainer.getTabWidth(realPosition);
+        }
+        final int[] edges = getTabEdges();
+        return edges[realPosition + 1] - edges[realPosition];
+    }
+
+    /**
+     * @return the real position of the tab under x in the tabs container
+     */
+    private int getTabPositionAt(int x) {
+        if (recyclingTabsContainer != null) {
+            return recyclingTabsContainer.getTabPositionAt(x);
+        }
+        return TabRanges.findTab(getTabEdges(), tabsContainer.getChildCount(), x);
+    }
+
+    /**
+     * @return the edges of the tab views, taken from the children once per layout
+     */
+    private int[] getTabEdges() {
+        final int count = tabsContainer.getChildCount();
+        if (tabEdgesValid && tabEdges.length == count + 1) {
+            return tabEdges;
+        }
+
+        if (tabEdges.length != count + 1) {
+            tabEdges = new int[count + 1];
+        }
+        for (int i = 0; i < count; i++) {
+            tabEdges[i] = tabsContainer.getChildAt(i).getLeft();
+        }
+        tabEdges[count] = count > 0 ? tabsContainer.getChildAt(count - 1).getRight() : 0;
+        tabEdgesValid = true;
+        return tabEdges;
+    }
+
+    private int getTabRight(int realPosition) {
+        return getTabLeft(realPosition) + getTabWidth(realPosition);
+    }
+
     protected int getRealCurrentPosition() {
         return currentPosition + tabCount;
     }
 
     protected int getTabsWidth() {
-        return tabsContainer.getWidth() / DUMMY_TAB_RATE;
+        return tabsContainer.getWidth() / tabCopies;
     }
 
     protected boolean isInfiniteStartPoint(int point) {
@@ -1025,6 +2313,28 @@ public class SpinningTabStrip extends HorizontalScrollView {
     }
 
     protected boolean isInfiniteEndPoint(int point) {
-        return point >= (tabsContainer.getWidth() - getTabsWidth());
+        return point >= (tabsContainer.getWidth() - getWrapWidth());
+    }
+
+    /**
+     * @return the width from both ends within which the strip wraps, whole sets
+     * of tabs covering the viewport
+     */
+    protected int getWrapWidth() {
+        return SpinningPositions.wrapWidth(getWidth(), getTabsWidth(), tabCopies);
+    }
+
+    /**
+     * @param tabsWidth width of one set of tabs, or 0 if unknown
+     * @return the number of tab sets needed for seamless wrap, unless the side
+     * count or the count of shown tabs is set
+     */
+    private int resolveTabCopies(int tabsWidth) {
+        int viewportWidth = getWidth();
+        if (viewportWidth == 0) {
+            viewportWidth = getResources().getDisplayMetrics().widthPixels;
+        }
+        return SpinningPositions.resolveTabCopies(sideCount, showTabsCount, tabCount, tabsWidth,
+                viewportWidth, MIN_TAB_COPIES, DEFAULT_TAB_COPIES);
     }
 }
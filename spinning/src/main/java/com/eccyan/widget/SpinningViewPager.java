@@ -18,6 +18,8 @@
 package com.eccyan.widget;
 
 import android.content.Context;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.support.v4.view.PagerAdapter;
 import android.support.v4.view.ViewPager;
 import android.util.AttributeSet;
@@ -40,14 +42,41 @@ import android.util.AttributeSet;
  * The modified adapter will have to create 6 items [0,1,2,3,4,5]
  * with mapping realPosition=(position-1)%count
  * [0->3, 1->0, 2->1, 3->2, 4->3, 5->0]
+ *
+ * Alternatively call setBoundaryFragmentsShared( true ) before setting the
+ * adapter, the boundary pages then reuse the fragments of real positions.
  */
 public class SpinningViewPager extends ViewPager {
 
     private static final boolean DEFAULT_BOUNDARY_CASHING = false;
 
+    // Pages prefetched ahead are the pages reached within this time at the current velocity
+    private static final float PREFETCH_LOOKAHEAD_SECONDS = 0.5f;
+
+    /**
+     * Reports pages created and destroyed through the wrapped adapter, e.g. to
+     * telemetry. Nothing is measured without a listener.
+     */
+    public interface MetricsListener {
+
+        void onPageInstantiated(int position, long durationNanos);
+
+        void onPageDestroyed(int position, long durationNanos);
+    }
+
     OnPageChangeListener mOuterPageChangeListener;
+    private final PageChangeDispatcher mPageChangeListeners = new PageChangeDispatcher();
     private LoopPagerAdapterWrapper mAdapter;
     private boolean mBoundaryCaching = DEFAULT_BOUNDARY_CASHING;
+    private int mPageCacheSize = 0;
+    private int mMaxPrefetchPages = 0;
+    private boolean mSharedFragments = false;
+    private boolean mLargeVirtualCount = false;
+    private float mScrollVelocity = 0;
+    private float mLastScrollPosition = -1;
+    private long mLastScrollTimeNanos;
+    private boolean mPrefetchScheduled = false;
+    private MetricsListener mMetricsListener;
     
     
     /**
@@ -58,13 +87,7 @@ public class SpinningViewPager extends ViewPager {
      * @return (position-1)%count
      */
     public static int toRealPosition( int position, int count ){
-        position = position-1;
-        if( position < 0 ){
-            position += count;
-        }else{
-            position = position%count;
-        }
-        return position;
+        return SpinningPositions.toRealPosition(position, count);
     }
     
     /**
@@ -80,11 +103,110 @@ public class SpinningViewPager extends ViewPager {
         }
     }
 
+    /**
+     * Keeps up to size pages after they leave the pager instead of destroying
+     * them, so swiping back and forth around the loop reuses them. The least
+     * recently used pages are destroyed beyond that, all of them on data set
+     * changes.
+     *
+     * @param size number of cached pages, 0 to cache none but the boundary pages
+     */
+    public void setPageCacheSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Page cache size must not be negative: " + size);
+        }
+        mPageCacheSize = size;
+        if (mAdapter != null) {
+            mAdapter.setPageCacheSize(size);
+        }
+    }
+
+    public int getPageCacheSize() {
+        return mPageCacheSize;
+    }
+
+    /**
+     * Prefetches pages ahead in the direction of travel while the pager is
+     * scrolled, across the loop seam too, when the main thread is idle. The
+     * faster the scroll the more pages are prefetched, up to max.
+     *
+     * @param max number of prefetched pages kept at most, 0 to disable prefetching
+     */
+    public void setMaxPrefetchPages(int max) {
+        if (max < 0) {
+            throw new IllegalArgumentException("Max prefetch pages must not be negative: " + max);
+        }
+        mMaxPrefetchPages = max;
+        if (mAdapter != null) {
+            mAdapter.setMaxPrefetchPages(max);
+        }
+    }
+
+    public int getMaxPrefetchPages() {
+        return mMaxPrefetchPages;
+    }
+
+    /**
+     * Makes a FragmentPagerAdapter or FragmentStatePagerAdapter see real
+     * positions only, from 0 to count - 1. The boundary pages show the same
+     * fragment instance as their real page, so the adapter neither creates
+     * count + 2 fragments nor maps positions with {@link #toRealPosition(int, int)}.
+     *
+     * It must be set before the adapter. With fewer pages than the pager keeps
+     * offscreen, a page and its boundary copy can't be shown at once.
+     */
+    public void setBoundaryFragmentsShared(boolean shared) {
+        if (mAdapter != null) {
+            throw new IllegalStateException("Adapter is already set.");
+        }
+        mSharedFragments = shared;
+    }
+
+    public boolean isBoundaryFragmentsShared() {
+        return mSharedFragments;
+    }
+
+    /**
+     * Loops through a very large virtual count of pages, the real pages
+     * repeated around the middle, instead of jumping from the boundary pages
+     * to the real ones. Swipes never repopulate the pager, it is recentered
+     * only while its window is hidden. Fragment adapters see real positions
+     * only, as with {@link #setBoundaryFragmentsShared(boolean)}.
+     *
+     * It must be set before the adapter.
+     */
+    public void setLargeVirtualCount(boolean largeVirtualCount) {
+        if (mAdapter != null) {
+            throw new IllegalStateException("Adapter is already set.");
+        }
+        mLargeVirtualCount = largeVirtualCount;
+    }
+
+    public boolean isLargeVirtualCount() {
+        return mLargeVirtualCount;
+    }
+
+    public void setMetricsListener(MetricsListener listener) {
+        mMetricsListener = listener;
+        if (mAdapter != null) {
+            mAdapter.setMetricsListener(listener);
+        }
+    }
+
     @Override
     public void setAdapter(PagerAdapter adapter) {
         mAdapter = new LoopPagerAdapterWrapper(adapter);
         mAdapter.setBoundaryCaching(mBoundaryCaching);
+        mAdapter.setSharedFragments(mSharedFragments);
+        mAdapter.setVirtualCount(mLargeVirtualCount);
+        mAdapter.setPageCacheSize(mPageCacheSize);
+        mAdapter.setMaxPrefetchPages(mMaxPrefetchPages);
+        mAdapter.setMetricsListener(mMetricsListener);
+        mAdapter.setOnVirtualRecenterListener(mVirtualRecenterListener);
         super.setAdapter(mAdapter);
+        if (mLargeVirtualCount) {
+            super.setCurrentItem(mAdapter.getVirtualCenterPosition(0), false);
+        }
     }
 
     @Override
@@ -98,10 +220,42 @@ public class SpinningViewPager extends ViewPager {
     }
 
     public void setCurrentItem(int item, boolean smoothScroll) {
-        int realItem = mAdapter.toInnerPosition(item);
+        int realItem = mAdapter.isVirtual()
+                // Stays in the same set of pages, no matter how far from the middle
+                ? super.getCurrentItem() - getCurrentItem() + item
+                : mAdapter.toInnerPosition(item);
         super.setCurrentItem(realItem, smoothScroll);
     }
 
+    private final LoopPagerAdapterWrapper.OnVirtualRecenterListener mVirtualRecenterListener =
+            new LoopPagerAdapterWrapper.OnVirtualRecenterListener() {
+                @Override
+                public void onVirtualRecenter(int position) {
+                    SpinningViewPager.super.setCurrentItem(position, false);
+                }
+            };
+
+    /**
+     * Moves back to the same page in the middle of the virtual count.
+     */
+    private void recenterVirtualCount() {
+        final int position = super.getCurrentItem();
+        if (mAdapter == null || !mAdapter.isVirtual()
+                || mAdapter.isVirtualPositionCentered(position)) {
+            return;
+        }
+        super.setCurrentItem(mAdapter.getVirtualCenterPosition(mAdapter.toRealPosition(position)),
+                false);
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        if (visibility != VISIBLE) {
+            recenterVirtualCount();
+        }
+    }
+
     @Override
     public void setCurrentItem(int item) {
         if (getCurrentItem() != item) {
@@ -114,6 +268,18 @@ public class SpinningViewPager extends ViewPager {
         mOuterPageChangeListener = listener;
     };
 
+    /**
+     * Adds a listener called with real positions, besides the one set with
+     * {@link #setOnPageChangeListener(OnPageChangeListener)}.
+     */
+    public void addOnPageChangeListener(OnPageChangeListener listener) {
+        mPageChangeListeners.add(listener);
+    }
+
+    public void removeOnPageChangeListener(OnPageChangeListener listener) {
+        mPageChangeListeners.remove(listener);
+    }
+
     public SpinningViewPager(Context context) {
         super(context);
         init();
@@ -128,6 +294,50 @@ public class SpinningViewPager extends ViewPager {
         super.setOnPageChangeListener(onPageChangeListener);
     }
 
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (mPrefetchScheduled) {
+            Looper.myQueue().removeIdleHandler(mPrefetchHandler);
+            mPrefetchScheduled = false;
+        }
+    }
+
+    private void updateScrollVelocity(int position, float positionOffset) {
+        final long now = System.nanoTime();
+        final float scrollPosition = position + positionOffset;
+        final float distance = scrollPosition - mLastScrollPosition;
+        // Jumps across the loop seam aren't scrolls
+        if (mLastScrollPosition >= 0 && Math.abs(distance) < 1 && now > mLastScrollTimeNanos) {
+            mScrollVelocity = distance * 1e9f / (now - mLastScrollTimeNanos);
+        }
+        mLastScrollPosition = scrollPosition;
+        mLastScrollTimeNanos = now;
+
+        if (mMaxPrefetchPages > 0 && mScrollVelocity != 0 && !mPrefetchScheduled) {
+            mPrefetchScheduled = true;
+            Looper.myQueue().addIdleHandler(mPrefetchHandler);
+        }
+    }
+
+    private final MessageQueue.IdleHandler mPrefetchHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            mPrefetchScheduled = false;
+            if (mAdapter == null || mScrollVelocity == 0) {
+                return false;
+            }
+
+            final int direction = mScrollVelocity > 0 ? 1 : -1;
+            final int count = (int) Math.ceil(Math.abs(mScrollVelocity) * PREFETCH_LOOKAHEAD_SECONDS);
+            // Pages within the offscreen limit are already instantiated by the pager
+            final int position = SpinningViewPager.super.getCurrentItem()
+                    + direction * (getOffscreenPageLimit() + 1);
+            mAdapter.prefetch(SpinningViewPager.this, position, direction, count);
+            return false;
+        }
+    };
+
     private OnPageChangeListener onPageChangeListener = new OnPageChangeListener() {
         private float mPreviousOffset = -1;
         private float mPreviousPosition = -1;
@@ -141,6 +351,7 @@ public class SpinningViewPager extends ViewPager {
                 if (mOuterPageChangeListener != null) {
                     mOuterPageChangeListener.onPageSelected(realPosition);
                 }
+                mPageChangeListeners.onPageSelected(realPosition);
             }
         }
 
@@ -150,8 +361,10 @@ public class SpinningViewPager extends ViewPager {
             int realPosition = position;
             if (mAdapter != null) {
                 realPosition = mAdapter.toRealPosition(position);
+                updateScrollVelocity(position, positionOffset);
 
-                if (positionOffset == 0
+                if (!mAdapter.isVirtual()
+                        && positionOffset == 0
                         && mPreviousOffset == 0
                         && (position == 0 || position == mAdapter.getCount() - 1)) {
                     setCurrentItem(realPosition, false);
@@ -163,14 +376,20 @@ public class SpinningViewPager extends ViewPager {
                 mOuterPageChangeListener.onPageScrolled(realPosition,
                         positionOffset, positionOffsetPixels);
             }
+            mPageChangeListeners.onPageScrolled(realPosition, positionOffset, positionOffsetPixels);
         }
 
         @Override
         public void onPageScrollStateChanged(int state) {
+            if (state == ViewPager.SCROLL_STATE_IDLE) {
+                mScrollVelocity = 0;
+                mLastScrollPosition = -1;
+            }
             if (mAdapter != null) {
                 int position = SpinningViewPager.super.getCurrentItem();
                 int realPosition = mAdapter.toRealPosition(position);
-                if (state == ViewPager.SCROLL_STATE_IDLE
+                // The virtual count is recentered while hidden, never in front of the user
+                if (state == ViewPager.SCROLL_STATE_IDLE && !mAdapter.isVirtual()
                         && (position == 0 || position == mAdapter.getCount() - 1)) {
                     setCurrentItem(realPosition, false);
                 }
@@ -178,6 +397,7 @@ public class SpinningViewPager extends ViewPager {
             if (mOuterPageChangeListener != null) {
                 mOuterPageChangeListener.onPageScrollStateChanged(state);
             }
+            mPageChangeListeners.onPageScrollStateChanged(state);
         }
     };
 
@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2015 eccyan <g00.eccyan@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eccyan.widget;
+
+import android.content.res.ColorStateList;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Draws plain text tabs straight onto the canvas of SpinningTabStrip.
+ *
+ * A text layout is cached per real position and shared by all dummy copies,
+ * tab widths fit both the normal and the selected typeface so that selecting
+ * a tab never moves the others.
+ */
+class TextTabsRenderer implements RecyclingTabsLayout.TabMeasurer {
+
+    private static final int[] SELECTED_STATE_SET = new int[]{android.R.attr.state_selected};
+
+    private static final int[] EMPTY_STATE_SET = new int[0];
+
+    private final TextPaint paint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+
+    private final TextPaint selectedPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+
+    private CharSequence[] titles = new CharSequence[0];
+
+    private Layout[] layouts = new Layout[0];
+
+    private Layout[] selectedLayouts = new Layout[0];
+
+    private int[] widths = new int[0];
+
+    private int tabPadding;
+
+    private boolean allCaps;
+
+    private Locale locale;
+
+    private ColorStateList textColor;
+
+    private float textAlpha;
+
+    private float textSelectedAlpha;
+
+    void setTitles(CharSequence[] titles) {
+        this.titles = titles;
+        invalidateLayouts();
+    }
+
+    void setTitle(int position, CharSequence title) {
+        titles[position] = title;
+        layouts[position] = null;
+        selectedLayouts[position] = null;
+        widths[position] = -1;
+    }
+
+    /**
+     * Takes the widths and layouts measured for the current titles in the background.
+     */
+    void applyPrecomputed(PrecomputedTabs precomputed) {
+        System.arraycopy(precomputed.widths, 0, widths, 0, widths.length);
+        System.arraycopy(precomputed.layouts, 0, layouts, 0, layouts.length);
+    }
+
+    void insertTitles(int positionStart, CharSequence[] inserted) {
+        final int itemCount = inserted.length;
+        titles = TabRanges.insert(titles, positionStart, itemCount);
+        System.arraycopy(inserted, 0, titles, positionStart, itemCount);
+        layouts = TabRanges.insert(layouts, positionStart, itemCount);
+        selectedLayouts = TabRanges.insert(selectedLayouts, positionStart, itemCount);
+        widths = TabRanges.insert(widths, positionStart, itemCount, -1);
+    }
+
+    void removeTitles(int positionStart, int itemCount) {
+        titles = TabRanges.remove(titles, positionStart, itemCount);
+        layouts = TabRanges.remove(layouts, positionStart, itemCount);
+        selectedLayouts = TabRanges.remove(selectedLayouts, positionStart, itemCount);
+        widths = TabRanges.remove(widths, positionStart, itemCount);
+    }
+
+    void moveTitles(int fromPosition, int toPosition, int itemCount) {
+        TabRanges.move(titles, fromPosition, toPosition, itemCount);
+        TabRanges.move(layouts, fromPosition, toPosition, itemCount);
+        TabRanges.move(selectedLayouts, fromPosition, toPosition, itemCount);
+        TabRanges.move(widths, fromPosition, toPosition, itemCount);
+    }
+
+    void setStyle(int textSize, Typeface typeface, int style, int selectedStyle, boolean allCaps,
+            Locale locale, ColorStateList textColor, float textAlpha, float textSelectedAlpha,
+            int tabPadding) {
+        paint.setTextSize(textSize);
+        applyTypeface(paint, typeface, style);
+        selectedPaint.setTextSize(textSize);
+        applyTypeface(selectedPaint, typeface, selectedStyle);
+
+        this.allCaps = allCaps;
+        this.locale = locale;
+        this.textColor = textColor;
+        this.textAlpha = textAlpha;
+        this.textSelectedAlpha = textSelectedAlpha;
+        this.tabPadding = tabPadding;
+        invalidateLayouts();
+    }
+
+    @Override
+    public int getTabWidth(int position) {
+        if (widths[position] < 0) {
+            final CharSequence title = getTitle(position);
+            final float width = Math.max(Layout.getDesiredWidth(title, paint),
+                    Layout.getDesiredWidth(title, selectedPaint));
+            widths[position] = (int) Math.ceil(width) + tabPadding * 2;
+        }
+        return widths[position];
+    }
+
+    @Override
+    public int getTabHeight() {
+        return (int) Math.ceil(Math.max(paint.descent() - paint.ascent(),
+                selectedPaint.descent() - selectedPaint.ascent()));
+    }
+
+    /**
+     * Draws the title centered inside the tab bounds.
+     */
+    void draw(Canvas canvas, int position, float left, float width, float height,
+            boolean selected) {
+        final Layout layout = getLayout(position, selected);
+        final TextPaint layoutPaint = layout.getPaint();
+        int color = Color.BLACK;
+        if (textColor != null) {
+            color = textColor.getColorForState(selected ? SELECTED_STATE_SET : EMPTY_STATE_SET,
+                    textColor.getDefaultColor());
+        }
+        layoutPaint.setColor(color);
+        layoutPaint.setAlpha((int) (Color.alpha(color) * (selected ? textSelectedAlpha : textAlpha)));
+
+        final int saveCount = canvas.save();
+        canvas.translate(left + (width - layout.getWidth()) / 2f,
+                (height - layout.getHeight()) / 2f);
+        layout.draw(canvas);
+        canvas.restoreToCount(saveCount);
+    }
+
+    private Layout getLayout(int position, boolean selected) {
+        final Layout[] cache = selected ? selectedLayouts : layouts;
+        if (cache[position] == null) {
+            final TextPaint layoutPaint = selected ? selectedPaint : paint;
+            final CharSequence title = getTitle(position);
+            final int width = (int) Math.ceil(Layout.getDesiredWidth(title, layoutPaint));
+            cache[position] = new StaticLayout(title, layoutPaint, width,
+                    Layout.Alignment.ALIGN_NORMAL, 1f, 0f, false);
+        }
+        return cache[position];
+    }
+
+    private CharSequence getTitle(int position) {
+        final CharSequence title = titles[position];
+        if (title == null) {
+            return "";
+        }
+        return allCaps ? title.toString().toUpperCase(locale) : title;
+    }
+
+    private void invalidateLayouts() {
+        layouts = new Layout[titles.length];
+        selectedLayouts = new Layout[titles.length];
+        widths = new int[titles.length];
+        Arrays.fill(widths, -1);
+    }
+
+    // Same as TextView#setTypeface(Typeface, int)
+    static void applyTypeface(TextPaint paint, Typeface typeface, int style) {
+        final Typeface tf = Typeface.create(typeface, style);
+        paint.setTypeface(tf);
+        final int need = style & ~(tf != null ? tf.getStyle() : 0);
+        paint.setFakeBoldText((need & Typeface.BOLD) != 0);
+        paint.setTextSkewX((need & Typeface.ITALIC) != 0 ? -0.25f : 0);
+    }
+}